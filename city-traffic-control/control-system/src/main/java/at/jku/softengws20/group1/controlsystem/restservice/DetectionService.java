@@ -1,13 +1,18 @@
 package at.jku.softengws20.group1.controlsystem.restservice;
 
+import at.jku.softengws20.group1.shared.impl.model.CarEvent;
 import at.jku.softengws20.group1.shared.impl.model.CarPosition;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLightRule;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLoad;
+import at.jku.softengws20.group1.shared.impl.model.TrafficLoadChanges;
 import at.jku.softengws20.group1.shared.impl.service.DetectionRestService;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 
 @Service
-public class DetectionService extends DetectionRestService<TrafficLoad, TrafficLightRule, CarPosition> {
+public class DetectionService extends DetectionRestService<TrafficLoad, TrafficLightRule, CarPosition, CarEvent> {
+    private long epoch = 0;
+    private long sequence = 0;
 
     public DetectionService() {
         super(TrafficLoad[].class);
@@ -17,4 +22,28 @@ public class DetectionService extends DetectionRestService<TrafficLoad, TrafficL
     public TrafficLoad[] getTrafficLoad() {
         return super.getTrafficLoad();
     }
+
+    /**
+     * Polls the traffic load of the roads changed since the last call. All roads are returned on the first call,
+     * after a restart of the detection system and if it does not support polling changes, i.e. answers with an
+     * error or with the plain array of {@link #getTrafficLoad()}.
+     */
+    public synchronized TrafficLoad[] getChangedTrafficLoad() {
+        TrafficLoadChanges changes;
+        try {
+            changes = getTrafficLoad(sequence);
+            if (changes != null && !changes.isFull() && changes.getEpoch() != epoch) {
+                changes = getTrafficLoad(0);        //detection restarted, resync
+            }
+        } catch (RestClientException e) {
+            epoch = 0;
+            sequence = 0;
+            TrafficLoad[] trafficLoad = getTrafficLoad();
+            return trafficLoad == null ? new TrafficLoad[0] : trafficLoad;
+        }
+        if (changes == null) return new TrafficLoad[0];
+        epoch = changes.getEpoch();
+        sequence = changes.getSequence();
+        return changes.getTrafficLoad();
+    }
 }
@@ -40,7 +40,7 @@ public class AutomaticTrafficControl {
     @Scheduled(fixedRate = 1000)
     private void processTrafficLoad() {
         System.out.println("##### processTrafficLoad");
-        TrafficLoad[] trafficLoad = detectionService.getTrafficLoad();
+        TrafficLoad[] trafficLoad = detectionService.getChangedTrafficLoad();
         if (trafficLoad.length > 0) {
             trafficStatusRepository.processTrafficLoad(trafficLoad);
         }
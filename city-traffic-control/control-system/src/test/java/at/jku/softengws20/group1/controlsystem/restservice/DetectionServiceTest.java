@@ -0,0 +1,72 @@
+package at.jku.softengws20.group1.controlsystem.restservice;
+
+import at.jku.softengws20.group1.shared.impl.model.TrafficLoad;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class DetectionServiceTest {
+    private static final String URL = "http://localhost:8080/detection/trafficLoad";
+    private static final String ALL = "[{\"roadSegmentId\":\"rs1\",\"carsWaiting\":3},{\"roadSegmentId\":\"rs2\",\"carsWaiting\":0}]";
+
+    private StubbedDetectionService detectionService;
+    private MockRestServiceServer server;
+
+    /**
+     * gives the test the rest template of the service
+     */
+    private static class StubbedDetectionService extends DetectionService {
+        RestTemplate getRestTemplate() {
+            return restTemplate;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        detectionService = new StubbedDetectionService();
+        server = MockRestServiceServer.bindTo(detectionService.getRestTemplate()).build();
+    }
+
+    @Test
+    void changedTrafficLoad() {
+        server.expect(requestTo(URL + "?since=0")).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"epoch\":5,\"sequence\":7,\"full\":true,\"trafficLoad\":" + ALL + "}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(requestTo(URL + "?since=7")).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"epoch\":5,\"sequence\":8,\"full\":false,\"trafficLoad\":"
+                        + "[{\"roadSegmentId\":\"rs2\",\"carsWaiting\":1}]}", MediaType.APPLICATION_JSON));
+
+        assertEquals(2, detectionService.getChangedTrafficLoad().length);
+        TrafficLoad[] changed = detectionService.getChangedTrafficLoad();
+        assertEquals(1, changed.length);
+        assertEquals("rs2", changed[0].getRoadSegmentId());
+        assertEquals(1, changed[0].getCarsWaiting());
+        server.verify();
+    }
+
+    @Test           //a detection without polling of changes ignores the parameter and answers with all roads
+    void detectionWithoutChanges() {
+        for (int i = 0; i < 2; i++) {
+            server.expect(requestTo(URL + "?since=0")).andExpect(method(HttpMethod.GET))
+                    .andRespond(withSuccess(ALL, MediaType.APPLICATION_JSON));
+            server.expect(requestTo(URL)).andExpect(method(HttpMethod.GET))
+                    .andRespond(withSuccess(ALL, MediaType.APPLICATION_JSON));
+        }
+
+        for (int i = 0; i < 2; i++) {
+            TrafficLoad[] trafficLoad = detectionService.getChangedTrafficLoad();
+            assertEquals(2, trafficLoad.length);
+            assertEquals("rs1", trafficLoad[0].getRoadSegmentId());
+            assertEquals(3, trafficLoad[0].getCarsWaiting());
+        }
+        server.verify();
+    }
+}
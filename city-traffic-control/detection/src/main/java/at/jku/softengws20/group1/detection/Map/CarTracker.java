@@ -0,0 +1,225 @@
+package at.jku.softengws20.group1.detection.Map;
+
+import at.jku.softengws20.group1.shared.Config;
+import at.jku.softengws20.group1.shared.impl.model.CarPosition;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Keeps the street of every car and counts the cars per street from car position updates.
+ * <p>
+ * The cars are sharded by id into {@link Config#DETECTION_INGEST_SHARDS} shards (rounded up to a power of 2),
+ * each locked on its own, so concurrent batches only contend on the shards they share. Large batches are split
+ * by shard and applied by a pool of {@link Config#DETECTION_INGEST_THREADS} threads. The updates of one car are
+ * applied in the order of the batch, so the counts are exact.
+ */
+public class CarTracker {
+    /**
+     * smaller batches are applied by the calling thread
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final Function<String, Street> streets;
+    private final Shard[] shards;
+    private final ExecutorService workers;
+
+    /**
+     * @param streets finds a street by id, e.g. {@code cityMap::getStreet}
+     */
+    public CarTracker(Function<String, Street> streets) {
+        this.streets = streets;
+        //shard() masks the hash, so the count has to be a power of 2
+        int count = Config.DETECTION_INGEST_SHARDS;
+        shards = new Shard[count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1];
+        for (int i = 0; i < shards.length; i++) shards[i] = new Shard();
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Config.DETECTION_INGEST_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "car-ingest-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Applies the positions and returns when all of them are counted. A position without incoming road segment
+     * means the car arrived.
+     */
+    public void setCarPositions(CarPosition[] positions) {
+        int[] shardOf = new int[positions.length];
+        int[] shardSize = new int[shards.length];
+        for (int i = 0; i < positions.length; i++) {
+            shardOf[i] = shard(positions[i].getCarId());
+            shardSize[shardOf[i]]++;
+        }
+        int[][] batches = new int[shards.length][];
+        for (int s = 0; s < shards.length; s++) batches[s] = new int[shardSize[s]];
+        int[] filled = new int[shards.length];
+        for (int i = 0; i < positions.length; i++) batches[shardOf[i]][filled[shardOf[i]]++] = i;
+
+        if (positions.length < PARALLEL_THRESHOLD) {
+            for (int s = 0; s < shards.length; s++) shards[s].apply(positions, batches[s]);
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            Shard shard = shards[s];
+            int[] batch = batches[s];
+            if (batch.length == 0) {
+                done.countDown();
+                continue;
+            }
+            try {
+                workers.execute(() -> {
+                    try {
+                        shard.apply(positions, batch);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                //shut down
+                shard.apply(positions, batch);
+                done.countDown();
+            }
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int shard(String carId) {
+        int hash = carId.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (shards.length - 1);
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private class Shard {
+        private final CarMap cars = new CarMap();
+        /**
+         * cars with an id that is not an int
+         */
+        private final HashMap<String, Street> otherCars = new HashMap<>();
+
+        synchronized void apply(CarPosition[] positions, int[] batch) {
+            for (int i : batch) {
+                CarPosition position = positions[i];
+                String carId = position.getCarId();
+                int id = parseId(carId);
+                Street street = position.getIncomingRoadSegmentId() == null ? null : streets.apply(position.getIncomingRoadSegmentId());
+                Street previous;
+                if (id >= 0) previous = street == null ? cars.remove(id) : cars.put(id, street);
+                else previous = street == null ? otherCars.remove(carId) : otherCars.put(carId, street);
+                if (previous != null) previous.outgoingVehicle();       // car leaves street
+                if (street != null) street.incomingVehicle();
+            }
+        }
+    }
+
+    /**
+     * @return the id if it is a non negative int in decimal notation, -1 otherwise
+     */
+    private static int parseId(String carId) {
+        if (carId.isEmpty() || carId.length() > 10) return -1;
+        long id = 0;
+        for (int i = 0; i < carId.length(); i++) {
+            char c = carId.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            id = id * 10 + (c - '0');
+        }
+        return id <= Integer.MAX_VALUE ? (int) id : -1;
+    }
+
+    /**
+     * Street by car id, open addressing with linear probing on primitive keys.
+     */
+    private static final class CarMap {
+        private int[] keys = new int[64];
+        /**
+         * null marks a free slot
+         */
+        private Street[] values = new Street[64];
+        private int size = 0;
+
+        /**
+         * @return the previous street of the car, null if it had none
+         */
+        Street put(int key, Street value) {
+            int slot = find(key);
+            Street previous = values[slot];
+            if (previous == null) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+            return previous;
+        }
+
+        /**
+         * @return the street of the car, null if it had none
+         */
+        Street remove(int key) {
+            int slot = find(key);
+            Street previous = values[slot];
+            if (previous == null) return null;
+            values[slot] = null;
+            size--;
+            //move following entries of the probe sequence into the gap
+            int mask = keys.length - 1;
+            int gap = slot;
+            for (int i = (slot + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                int home = hash(keys[i]) & mask;
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    values[i] = null;
+                    gap = i;
+                }
+            }
+            return previous;
+        }
+
+        /**
+         * @return the slot of the key or the free slot it would be put in
+         */
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != null && keys[slot] != key) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            Street[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new Street[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] == null) continue;
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private static int hash(int key) {
+            int hash = key * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package at.jku.softengws20.group1.detection.Map;
 
+import at.jku.softengws20.group1.detection.restservice.ParticipantsService;
+import at.jku.softengws20.group1.detection.restservice.TrafficLightChangePublisher;
 import at.jku.softengws20.group1.shared.impl.model.RoadNetwork;
 
 import java.util.HashMap;
@@ -8,6 +10,18 @@ import java.util.Map;
 public class CityMap {
     private final Map<String, Street> streets = new HashMap<>();
     private final Map<String, Crossroad> crossroads = new HashMap<>();
+    private final TrafficLightChangePublisher trafficLightChangePublisher = new TrafficLightChangePublisher(new ParticipantsService()::notifyTrafficLightsChanged);
+    private final TrafficLightScheduler trafficLightScheduler;
+    private final CarTracker carTracker = new CarTracker(this::getStreet);
+    private volatile TrafficLoadLog trafficLoadLog;
+
+    public CityMap() {
+        this(SimulationClock.realTime());
+    }
+
+    public CityMap(SimulationClock clock) {     //the traffic lights run on the given simulated time
+        trafficLightScheduler = new TrafficLightScheduler(clock, trafficLightChangePublisher);
+    }
 
     public void createCityMap(RoadNetwork roadNetwork) {
 
@@ -31,8 +45,16 @@ public class CityMap {
             }
         }
 
-        //start traffic lights (running in thread´s)
-        crossroads.forEach((x,y) -> y.start());
+        trafficLoadLog = new TrafficLoadLog(streets.values());
+
+        //start traffic lights (driven by the scheduler)
+        crossroads.forEach((x,y) -> y.start(trafficLightScheduler));
+    }
+
+    public void shutdown() {        //stops all traffic lights
+        trafficLightScheduler.shutdown();
+        trafficLightChangePublisher.shutdown();
+        carTracker.shutdown();
     }
 
     public Street getStreet(String id) {
@@ -43,6 +65,14 @@ public class CityMap {
         return streets;
     }
 
+    public TrafficLoadLog getTrafficLoadLog() {      //null until the city map is created
+        return trafficLoadLog;
+    }
+
+    public CarTracker getCarTracker() {
+        return carTracker;
+    }
+
     public Crossroad getCrossroad(String id) {
         return crossroads.get(id);
     }
@@ -1,20 +1,17 @@
 package at.jku.softengws20.group1.detection.Map;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class Crossroad {
     private final String id;
     private final Map<String, Street> streets = new HashMap<>();
     private InformationSign informationSign;
     private TrafficLight trafficLight;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     public Crossroad(String id) {
         this.id = id;
     }
 
-    public void start() {
+    public void start(TrafficLightScheduler scheduler) {
 
         //starts traffic lights
         final Map<String, Street> toCrossings = new HashMap<>();
@@ -23,8 +20,8 @@ public class Crossroad {
                 toCrossings.put(entry.getKey(), entry.getValue());
             }
         }
-        trafficLight = new TrafficLight(toCrossings, id);
-        executor.submit(trafficLight);
+        trafficLight = new TrafficLight(toCrossings, id, scheduler.getClock());
+        scheduler.start(trafficLight);
     }
 
     //Getter und Setter and reset
@@ -0,0 +1,25 @@
+package at.jku.softengws20.group1.detection.Map;
+
+/**
+ * Simulated time that only moves when it is set, e.g. by the driver of a fast-forward run.
+ */
+public class ManualClock implements SimulationClock {
+    private volatile long millis;
+
+    public ManualClock(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    public synchronized void set(long millis) {
+        if (millis > this.millis) this.millis = millis;
+    }
+
+    public synchronized void advance(long millis) {
+        set(this.millis + millis);
+    }
+}
@@ -0,0 +1,146 @@
+package at.jku.softengws20.group1.detection.Map;
+
+/**
+ * Compiled signal plan of one crossroad: a cycle of phases, each with its offset in the cycle and the roads that
+ * are green during it. The cycle repeats from {@link #getStart()} on, so the phase at any simulated time is found
+ * without simulating the phases before it.
+ * <p>
+ * The lookup is O(1): the cycle is split into buckets no longer than the shortest phase, each knowing the phase
+ * it starts in, so at most one phase boundary lies within a bucket (unless a phase is shorter than
+ * 1/{@value #MAX_BUCKETS} of the cycle).
+ * <p>
+ * A table replacing another one keeps it as previous table for the times before its start.
+ * Immutable, so it can be shared between threads.
+ */
+public final class PhaseTable {
+    private static final int MAX_BUCKETS = 4096;
+    private static final String[] NO_ROADS = new String[0];
+
+    private final long start;
+    private final long cycle;
+    private final long[] offsets;
+    private final String[][] greenRoads;
+    private final long bucketWidth;
+    private final int[] buckets;
+    private final PhaseTable previous;
+
+    /**
+     * @param greenRoads roads green in each phase
+     * @param durations  simulated ms of each phase, phases of 0 ms are left out
+     * @param start      simulated ms the first cycle starts at
+     * @param previous   table used before the start, null if there is none
+     */
+    public PhaseTable(String[][] greenRoads, long[] durations, long start, PhaseTable previous) {
+        this.start = start;
+        this.previous = previous == null ? null : previous.withoutPrevious();
+        int count = 0;
+        long shortest = Long.MAX_VALUE;
+        for (long duration : durations) {
+            if (duration > 0) {
+                count++;
+                shortest = Math.min(shortest, duration);
+            }
+        }
+        offsets = new long[count];
+        this.greenRoads = new String[count][];
+        long offset = 0;
+        int phase = 0;
+        for (int i = 0; i < durations.length; i++) {
+            if (durations[i] <= 0) continue;
+            offsets[phase] = offset;
+            this.greenRoads[phase++] = greenRoads[i].clone();
+            offset += durations[i];
+        }
+        cycle = offset;
+
+        if (count == 0) {
+            bucketWidth = 1;
+            buckets = new int[0];
+            return;
+        }
+        long width = Math.max(shortest, (cycle + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        bucketWidth = width;
+        buckets = new int[(int) ((cycle + width - 1) / width)];
+        phase = 0;
+        for (int b = 0; b < buckets.length; b++) {
+            while (phase + 1 < count && offsets[phase + 1] <= b * width) phase++;
+            buckets[b] = phase;
+        }
+    }
+
+    private PhaseTable(PhaseTable table) {
+        start = table.start;
+        cycle = table.cycle;
+        offsets = table.offsets;
+        greenRoads = table.greenRoads;
+        bucketWidth = table.bucketWidth;
+        buckets = table.buckets;
+        previous = null;
+    }
+
+    private PhaseTable withoutPrevious() {
+        return previous == null ? this : new PhaseTable(this);
+    }
+
+    /**
+     * @return roads green at the simulated time, empty if the table has no phases; do not modify
+     */
+    public String[] getGreenRoads(long time) {
+        if (time < start && previous != null) return previous.getGreenRoads(time);
+        if (cycle == 0) return NO_ROADS;
+        return greenRoads[phase(Math.floorMod(time - start, cycle))];
+    }
+
+    /**
+     * @return the first simulated time after {@code time} the green roads may change,
+     * {@link Long#MAX_VALUE} if they never change
+     */
+    public long nextChange(long time) {
+        if (time < start && previous != null) return Math.min(start, previous.nextChange(time));
+        if (cycle == 0) return Long.MAX_VALUE;
+        long inCycle = Math.floorMod(time - start, cycle);
+        int phase = phase(inCycle);
+        return time - inCycle + (phase + 1 < offsets.length ? offsets[phase + 1] : cycle);
+    }
+
+    /**
+     * @return the start of the first cycle beginning at or after the simulated time
+     */
+    public long nextCycleStart(long time) {
+        if (time < start) return start;
+        if (cycle == 0) return time;
+        long inCycle = Math.floorMod(time - start, cycle);
+        return inCycle == 0 ? time : time - inCycle + cycle;
+    }
+
+    private int phase(long inCycle) {
+        int phase = buckets[(int) (inCycle / bucketWidth)];
+        while (phase + 1 < offsets.length && offsets[phase + 1] <= inCycle) phase++;
+        return phase;
+    }
+
+    /**
+     * @return the table used before the start, null if there is none
+     */
+    public PhaseTable getPrevious() {
+        return previous;
+    }
+
+    public int getPhaseCount() {
+        return offsets.length;
+    }
+
+    /**
+     * simulated ms the first cycle starts at
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * simulated ms of a full cycle
+     */
+    public long getCycle() {
+        return cycle;
+    }
+}
@@ -0,0 +1,23 @@
+package at.jku.softengws20.group1.detection.Map;
+
+import at.jku.softengws20.group1.shared.Config;
+
+/**
+ * Simulated time the traffic lights are evaluated against. Inject a {@link ManualClock} to run faster than real
+ * time or to reproduce a run.
+ */
+public interface SimulationClock {
+    /**
+     * @return simulated ms, never decreasing
+     */
+    long millis();
+
+    /**
+     * @return a clock starting at 0 that runs {@link Config#REAL_TIME_FACTOR} times as fast as the wall clock,
+     * like the participants simulation
+     */
+    static SimulationClock realTime() {
+        long start = System.nanoTime();
+        return () -> (long) ((System.nanoTime() - start) / 1000000 * (double) Config.REAL_TIME_FACTOR);
+    }
+}
@@ -2,12 +2,14 @@ package at.jku.softengws20.group1.detection.Map;
 
 import at.jku.softengws20.group1.shared.impl.model.TrafficLoad;
 
+import java.util.concurrent.atomic.LongAdder;
+
 public class Street {
     private final String id;
     private final SpeedLimit speedLimit = new SpeedLimit();
     private final InformationSign informationSign = new InformationSign();
     private final String toCrossing;
-    private int numberOfCars = 0;
+    private final LongAdder numberOfCars = new LongAdder();        //striped, updated from many threads
 
     public Street(String id, String toCrossing) {
         this.id = id;
@@ -31,15 +33,18 @@ public class Street {
     }
 
     public void incomingVehicle() {
-        numberOfCars++;
+        numberOfCars.increment();
     }
 
     public void outgoingVehicle() {
-        numberOfCars--;
+        numberOfCars.decrement();
+    }
+
+    public int getCarsWaiting() {
+        return (int) Math.max(0, numberOfCars.sum());      //failed notify
     }
 
     public TrafficLoad getTrafficLoad() {
-        if (numberOfCars <= 0) {numberOfCars = 0;} //failed notify
-        return new TrafficLoad(id, numberOfCars);
+        return new TrafficLoad(id, getCarsWaiting());
     }
 }
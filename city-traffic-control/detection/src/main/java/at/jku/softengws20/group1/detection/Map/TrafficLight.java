@@ -1,22 +1,32 @@
 package at.jku.softengws20.group1.detection.Map;
 
-import at.jku.softengws20.group1.detection.restservice.ParticipantsService;
 import at.jku.softengws20.group1.shared.Config;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLightChange;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-public class TrafficLight implements Runnable {
-    public static boolean stop = false;
+/**
+ * Signal plan of the traffic light of one crossroad: every incoming street gets green in turn for its share of
+ * the full run. The plan is compiled into a {@link PhaseTable} in simulated time; a changed plan takes effect with
+ * the next cycle. The participants are notified about the phase changes by the {@link TrafficLightScheduler}.
+ */
+public class TrafficLight {
     private final String crossroadId;
-    private final float minutesForFullRun = Config.MINUTES_FOR_FULL_TRAFFIC_LIGHT_RUN / Config.REAL_TIME_FACTOR;
-    private final ParticipantsService participantsService = new ParticipantsService();
+    private final float minutesForFullRun = Config.MINUTES_FOR_FULL_TRAFFIC_LIGHT_RUN;
     final Map<String, Double> priority = new HashMap<>();
     private boolean standardPriority = true;
+    private final SimulationClock clock;
+    private volatile PhaseTable phaseTable;
+    /**
+     * green roads last handed to the listener, only used by the scheduler
+     */
+    private String[] notifiedGreenRoads;
 
-    public TrafficLight(final Map<String, Street> streets, final String crossroadId) {     //Constructor
+    public TrafficLight(final Map<String, Street> streets, final String crossroadId, final SimulationClock clock) {     //Constructor
         this.crossroadId = crossroadId;
+        this.clock = clock;
         double time = minutesForFullRun / streets.size();
         for (Map.Entry<String, Street> entry : streets.entrySet()) {
             priority.put(entry.getKey(), time);
@@ -26,47 +36,87 @@ public class TrafficLight implements Runnable {
 
     public void standardPriority() {       //sets the time for each road-green phase
         double time = minutesForFullRun / priority.size();
-        for (Map.Entry<String, Double> entry : priority.entrySet()) {
-            synchronized (priority) {
+        synchronized (priority) {
+            for (Map.Entry<String, Double> entry : priority.entrySet()) {
                 entry.setValue(time);
             }
+            compile();
         }
         standardPriority = true;
     }
 
     public void setPriority(String streetWithPrioID, double prio) {        //set by control system
         double prioStreet = minutesForFullRun * prio;
-        priority.put(streetWithPrioID, prioStreet);     //Note, the other streets in the traffic light will not be changed because of the given Street priority. (the time expends)
+        synchronized (priority) {
+            priority.put(streetWithPrioID, prioStreet);     //Note, the other streets in the traffic light will not be changed because of the given Street priority. (the time expends)
+            compile();
+        }
         standardPriority = false;
     }
 
+    /**
+     * Compiles the priorities into a phase table starting with the next cycle of the current one.
+     */
+    private void compile() {
+        String[][] greenRoads = new String[priority.size()][];
+        long[] durations = new long[priority.size()];
+        int phase = 0;
+        for (Map.Entry<String, Double> entry : priority.entrySet()) {
+            greenRoads[phase] = new String[]{entry.getKey()};
+            durations[phase++] = (long) (entry.getValue() * 60 * 1000);
+        }
+        long now = clock.millis();
+        PhaseTable current = phaseTable;
+        if (current == null) {
+            phaseTable = new PhaseTable(greenRoads, durations, now, null);
+        } else if (now < current.getStart()) {
+            //the current table has not started yet, replace it but keep the running one
+            phaseTable = new PhaseTable(greenRoads, durations, current.getStart(), current.getPrevious());
+        } else {
+            phaseTable = new PhaseTable(greenRoads, durations, current.nextCycleStart(now), current);
+        }
+    }
+
     public Map<String, Double> getRules(){        //only for debugging
 
         //calculate back to given priority
         Map<String, Double> prioPercentage = new HashMap<>();
-        for (Map.Entry<String, Double> entry : priority.entrySet()) {
-            prioPercentage.put(entry.getKey(), entry.getValue() / minutesForFullRun);
+        synchronized (priority) {
+            for (Map.Entry<String, Double> entry : priority.entrySet()) {
+                prioPercentage.put(entry.getKey(), entry.getValue() / minutesForFullRun);
+            }
         }
         return prioPercentage;
     }
 
-    @Override
-    public void run() {
-        long time;
-        System.out.printf("start traffic light %s\n", crossroadId);
-        while (!stop) {
-            for (Map.Entry<String, Double> entry : priority.entrySet()) {
-                synchronized (priority) {
-                    time = (long) (entry.getValue() * 60);
-                }
-                participantsService.notifyTrafficLightChanged(new TrafficLightChange(crossroadId, new String[]{entry.getKey()}));       // notify Traffic Detection about traffic light change
-                System.out.printf("TrafficLight:%s StreetSeg:%s GREEN (Standard Priority: %b)\n", crossroadId, entry.getKey(), standardPriority);
-                try {
-                    TimeUnit.SECONDS.sleep(time);           // Time to wait till traffic light change
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
+    public String getCrossroadId() {
+        return crossroadId;
+    }
+
+    public PhaseTable getPhaseTable() {
+        return phaseTable;
+    }
+
+    /**
+     * @return roads green at the simulated time; do not modify
+     */
+    public String[] getGreenRoads(long time) {
+        return phaseTable.getGreenRoads(time);
+    }
+
+    /**
+     * Hands the green roads at the simulated time to the listener if they changed since the last call.
+     * @param listener gets the change, e.g. to notify the participants
+     * @return the simulated time of the next phase change, {@link Long#MAX_VALUE} if there is none
+     */
+    long update(long time, Consumer<TrafficLightChange> listener) {
+        PhaseTable table = phaseTable;
+        String[] greenRoads = table.getGreenRoads(time);
+        if (greenRoads.length > 0 && !Arrays.equals(greenRoads, notifiedGreenRoads)) {
+            listener.accept(new TrafficLightChange(crossroadId, greenRoads.clone()));       // notify Traffic Detection about traffic light change
+            notifiedGreenRoads = greenRoads;
+            System.out.printf("TrafficLight:%s StreetSeg:%s GREEN (Standard Priority: %b)\n", crossroadId, String.join(",", greenRoads), standardPriority);
         }
+        return table.nextChange(time);
     }
 }
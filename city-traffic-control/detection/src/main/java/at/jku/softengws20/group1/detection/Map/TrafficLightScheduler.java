@@ -0,0 +1,175 @@
+package at.jku.softengws20.group1.detection.Map;
+
+import at.jku.softengws20.group1.shared.Config;
+import at.jku.softengws20.group1.shared.impl.model.TrafficLightChange;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Notifies about the phase changes of all traffic lights with one hashed timer wheel instead of one sleeping
+ * thread per crossing.
+ * <p>
+ * The wheel has {@link Config#DETECTION_TIMER_WHEEL_SLOTS} slots of {@link Config#DETECTION_TIMER_TICK} simulated ms.
+ * One thread checks the {@link SimulationClock} every {@link Config#DETECTION_TIMER_TICK} ms, advances the wheel to
+ * the simulated time and hands the due traffic lights to a pool of {@link Config#DETECTION_TRAFFIC_LIGHT_WORKERS}
+ * threads. They look up the current phase in the phase table, hand a change to the listener and schedule the
+ * next phase change. Timeouts longer than one turn of the wheel wait the remaining number of turns in their slot.
+ * If the clock jumps ahead by more than a turn, all traffic lights are brought to the new time at once instead of
+ * stepping through the phases in between.
+ */
+public class TrafficLightScheduler {
+    private static final int SLOTS = Config.DETECTION_TIMER_WHEEL_SLOTS;
+    private static final long TICK = Config.DETECTION_TIMER_TICK;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Timeout>[] wheel = new ArrayDeque[SLOTS];
+    /**
+     * timeouts scheduled since the last tick, moved into the wheel by the timer thread
+     */
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final SimulationClock clock;
+    private final Consumer<TrafficLightChange> listener;
+    private final ExecutorService workers;
+    private final Thread timer;
+    private long tick;
+    private volatile boolean running = true;
+
+    /**
+     * @param listener gets every phase change, called by the worker threads
+     */
+    public TrafficLightScheduler(SimulationClock clock, Consumer<TrafficLightChange> listener) {
+        this.clock = clock;
+        this.listener = listener;
+        tick = clock.millis() / TICK;
+        for (int i = 0; i < SLOTS; i++) wheel[i] = new ArrayDeque<>();
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Config.DETECTION_TRAFFIC_LIGHT_WORKERS, runnable -> {
+            Thread thread = new Thread(runnable, "traffic-light-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer = new Thread(this::run, "traffic-light-timer");
+        timer.setDaemon(true);
+        timer.start();
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Notifies the current phase of the traffic light at once and every phase change after it until shutdown.
+     */
+    public void start(TrafficLight trafficLight) {
+        submit(trafficLight);
+    }
+
+    private void schedule(TrafficLight trafficLight, long time) {
+        if (!running || time == Long.MAX_VALUE) return;
+        added.add(new Timeout(trafficLight, time));
+    }
+
+    private void submit(TrafficLight trafficLight) {
+        try {
+            workers.execute(() -> {
+                long now = clock.millis();
+                long next;
+                try {
+                    next = trafficLight.update(now, listener);
+                } catch (RuntimeException e) {
+                    System.out.println("traffic light " + trafficLight.getCrossroadId() + ": " + e);
+                    next = trafficLight.getPhaseTable().nextChange(now);
+                }
+                schedule(trafficLight, next);
+            });
+        } catch (RejectedExecutionException e) {
+            //shut down
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(TICK);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long target = clock.millis() / TICK;
+            if (target - tick > SLOTS) {
+                //more than a turn passed, the phases in between are of no interest anymore
+                ArrayList<Timeout> due = new ArrayList<>();
+                for (ArrayDeque<Timeout> slot : wheel) {
+                    due.addAll(slot);
+                    slot.clear();
+                }
+                for (Timeout timeout = added.poll(); timeout != null; timeout = added.poll()) due.add(timeout);
+                tick = target;
+                for (Timeout timeout : due) submit(timeout.trafficLight);
+                continue;
+            }
+            while (tick < target) {
+                tick++;
+                for (Timeout timeout = added.poll(); timeout != null; timeout = added.poll()) {
+                    long ticks = Math.max(tick, (timeout.time + TICK - 1) / TICK);
+                    timeout.rounds = (ticks - tick) / SLOTS;
+                    wheel[(int) (ticks % SLOTS)].add(timeout);
+                }
+                Iterator<Timeout> iterator = wheel[(int) (tick % SLOTS)].iterator();
+                while (iterator.hasNext()) {
+                    Timeout timeout = iterator.next();
+                    if (timeout.rounds > 0) {
+                        timeout.rounds--;
+                    } else {
+                        iterator.remove();
+                        submit(timeout.trafficLight);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops all traffic lights. Phase changes already running are finished, no further ones are started.
+     */
+    public void shutdown() {
+        running = false;
+        timer.interrupt();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) workers.shutdownNow();
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static class Timeout {
+        private final TrafficLight trafficLight;
+        /**
+         * simulated ms the timeout is due at
+         */
+        private final long time;
+        /**
+         * turns of the wheel left before the timeout is due
+         */
+        private long rounds;
+
+        Timeout(TrafficLight trafficLight, long time) {
+            this.trafficLight = trafficLight;
+            this.time = time;
+        }
+    }
+}
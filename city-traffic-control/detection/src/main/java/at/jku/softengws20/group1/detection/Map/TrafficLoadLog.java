@@ -0,0 +1,56 @@
+package at.jku.softengws20.group1.detection.Map;
+
+import at.jku.softengws20.group1.shared.impl.model.TrafficLoad;
+import at.jku.softengws20.group1.shared.impl.model.TrafficLoadChanges;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Change sequence of the traffic load of every street, so pollers only get the streets changed since their last
+ * poll.
+ * <p>
+ * The car counters are not touched: a poll compares every street with the load it last reported, and if any
+ * changed, the global sequence number is increased and stored for the changed streets. So the sequence number of
+ * a street only grows, and a street is only reported again if its load is different.
+ */
+public class TrafficLoadLog {
+    private final long epoch = System.currentTimeMillis();
+    private final Street[] streets;
+    private final int[] reported;
+    private final long[] changed;
+    private long sequence = 1;
+
+    public TrafficLoadLog(Collection<Street> streets) {
+        this.streets = streets.toArray(new Street[0]);
+        reported = new int[this.streets.length];
+        changed = new long[this.streets.length];
+        Arrays.fill(changed, sequence);
+    }
+
+    /**
+     * @return the streets changed after the sequence number, all streets if it is not positive or larger than
+     * the current one (e.g. from before a restart)
+     */
+    public synchronized TrafficLoadChanges since(long since) {
+        boolean increased = false;
+        for (int i = 0; i < streets.length; i++) {
+            int cars = streets[i].getCarsWaiting();
+            if (cars != reported[i]) {
+                if (!increased) {
+                    sequence++;
+                    increased = true;
+                }
+                reported[i] = cars;
+                changed[i] = sequence;
+            }
+        }
+        boolean full = since <= 0 || since > sequence;
+        ArrayList<TrafficLoad> trafficLoad = new ArrayList<>();
+        for (int i = 0; i < streets.length; i++) {
+            if (full || changed[i] > since) trafficLoad.add(new TrafficLoad(streets[i].getId(), reported[i]));
+        }
+        return new TrafficLoadChanges(epoch, sequence, full, trafficLoad.toArray(new TrafficLoad[0]));
+    }
+}
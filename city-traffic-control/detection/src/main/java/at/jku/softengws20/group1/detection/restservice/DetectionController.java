@@ -2,20 +2,23 @@ package at.jku.softengws20.group1.detection.restservice;
 
 import at.jku.softengws20.group1.detection.Map.CityMap;
 import at.jku.softengws20.group1.detection.Map.Street;
+import at.jku.softengws20.group1.detection.Map.TrafficLoadLog;
 import at.jku.softengws20.group1.shared.detection.DetectionInterface;
+import at.jku.softengws20.group1.shared.impl.model.CarEvent;
 import at.jku.softengws20.group1.shared.impl.model.CarPosition;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLightRule;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLoad;
+import at.jku.softengws20.group1.shared.impl.model.TrafficLoadChanges;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.web.bind.annotation.*;
-import java.util.*;
 
 
 @RestController()
 @RequestMapping(DetectionInterface.URL)
-public class DetectionController implements DetectionInterface<TrafficLoad, TrafficLightRule, CarPosition>, ApplicationListener<ContextRefreshedEvent> {
+public class DetectionController implements DetectionInterface<TrafficLoad, TrafficLightRule, CarPosition, CarEvent>, ApplicationListener<ContextRefreshedEvent>, DisposableBean {
 
     @Autowired
     private ControlSystemService controlSystemService;
@@ -23,7 +26,6 @@ public class DetectionController implements DetectionInterface<TrafficLoad, Traf
     private boolean initialized = false;
 
     private final CityMap cityMap = new CityMap();
-    private final HashMap<String, String> carPosition = new HashMap<>();
 
     public CityMap getCityMap() {       //for Testcase
         return cityMap;
@@ -36,15 +38,28 @@ public class DetectionController implements DetectionInterface<TrafficLoad, Traf
         System.out.println("Detection running");
     }
 
+    @Override
+    public void destroy() {
+        cityMap.shutdown();
+    }
+
     @Override   //request from Control system
     @GetMapping(DetectionInterface.GET_TRAFFIC_LOAD_URL)
     public at.jku.softengws20.group1.shared.impl.model.TrafficLoad[] getTrafficLoad() {
-
-        List<TrafficLoad> trafficLoad = new LinkedList<>();
-        for (Map.Entry<String, Street> entry : cityMap.getStreets().entrySet()) {
-            trafficLoad.add(entry.getValue().getTrafficLoad());
+        TrafficLoad[] trafficLoad = new TrafficLoad[cityMap.getStreets().size()];
+        int i = 0;
+        for (Street street : cityMap.getStreets().values()) {
+            trafficLoad[i++] = street.getTrafficLoad();
         }
-        return trafficLoad.toArray(new at.jku.softengws20.group1.shared.impl.model.TrafficLoad[trafficLoad.size()]);
+        return trafficLoad;
+    }
+
+    @Override   //request from Control system
+    @GetMapping(value = DetectionInterface.GET_TRAFFIC_LOAD_URL, params = DetectionInterface.GET_TRAFFIC_LOAD_SINCE)
+    public TrafficLoadChanges getTrafficLoad(@RequestParam(DetectionInterface.GET_TRAFFIC_LOAD_SINCE) long since) {
+        TrafficLoadLog trafficLoadLog = cityMap.getTrafficLoadLog();
+        if (trafficLoadLog == null) return new TrafficLoadChanges(0, 0, true, new TrafficLoad[0]);     //not initialized
+        return trafficLoadLog.since(since);
     }
 
     @Override       //set from Control system
@@ -60,17 +75,25 @@ public class DetectionController implements DetectionInterface<TrafficLoad, Traf
     @Override       //set from Participants
     @PostMapping(DetectionInterface.SET_CAR_POSITION)
     public void setCarPosition(@RequestBody CarPosition[] position) {
-        for (final CarPosition value : position) {
-            if (carPosition.containsKey(value.getCarId())) {     // car leaves street
-                cityMap.getStreet(carPosition.get(value.getCarId())).outgoingVehicle();
-            }
-            if (value.getIncomingRoadSegmentId() == null) {
-                carPosition.remove(value.getCarId());        //car is arrived
-            } else {
-                cityMap.getStreet(value.getIncomingRoadSegmentId()).incomingVehicle();
-                carPosition.put(value.getCarId(), value.getIncomingRoadSegmentId());
+        cityMap.getCarTracker().setCarPositions(position);
+    }
+
+    @Override       //set from Participants
+    @PostMapping(DetectionInterface.SET_CAR_EVENTS)
+    public void setCarEvents(@RequestBody CarEvent[] events) {
+        for (final CarEvent event : events) {
+            Street street = cityMap.getStreet(event.getRoadSegmentId());
+            if (street == null) continue;
+            switch (event.getType()) {
+                case ENTER:
+                    street.incomingVehicle();
+                    break;
+                case LEAVE:
+                case ARRIVE:
+                    street.outgoingVehicle();
+                    break;
             }
         }
-        }
+    }
 
 }
@@ -0,0 +1,81 @@
+package at.jku.softengws20.group1.detection.restservice;
+
+import at.jku.softengws20.group1.shared.Config;
+import at.jku.softengws20.group1.shared.impl.model.TrafficLightChange;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Collects the traffic light changes of all crossings and sends them to the participants in one request per
+ * window of {@link Config#DETECTION_TRAFFIC_LIGHT_BATCH_WINDOW} ms, starting with the first change of the window.
+ * <p>
+ * Only the newest change per crossing is kept, so a batch is bounded by the number of crossings. The changes of
+ * a failed request are sent again with the next one unless the crossing changed again in the meantime.
+ */
+public class TrafficLightChangePublisher implements Consumer<TrafficLightChange> {
+    private static final long RETRY_DELAY = 1000;
+
+    private final Consumer<TrafficLightChange[]> sender;
+    private final Object lock = new Object();
+    private LinkedHashMap<String, TrafficLightChange> pending = new LinkedHashMap<>();
+    private final Thread thread;
+
+    /**
+     * @param sender sends a batch to the participants, e.g. {@code participantsService::notifyTrafficLightsChanged}
+     */
+    public TrafficLightChangePublisher(Consumer<TrafficLightChange[]> sender) {
+        this.sender = sender;
+        thread = new Thread(this::publishLoop, "traffic-light-publisher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Adds the change to the current batch and returns at once.
+     */
+    @Override
+    public void accept(TrafficLightChange change) {
+        synchronized (lock) {
+            pending.put(change.getCrossingId(), change);
+            lock.notify();
+        }
+    }
+
+    private void publishLoop() {
+        try {
+            while (true) {
+                LinkedHashMap<String, TrafficLightChange> batch;
+                synchronized (lock) {
+                    while (pending.isEmpty()) lock.wait();
+                }
+                Thread.sleep(Config.DETECTION_TRAFFIC_LIGHT_BATCH_WINDOW);
+                synchronized (lock) {
+                    batch = pending;
+                    pending = new LinkedHashMap<>();
+                }
+                try {
+                    sender.accept(batch.values().toArray(new TrafficLightChange[0]));
+                } catch (RuntimeException e) {
+                    System.out.println("sending " + batch.size() + " traffic light changes failed: " + e);
+                    synchronized (lock) {
+                        for (Map.Entry<String, TrafficLightChange> entry : batch.entrySet()) {
+                            pending.putIfAbsent(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    Thread.sleep(RETRY_DELAY);
+                }
+            }
+        } catch (InterruptedException e) {
+            //shut down
+        }
+    }
+
+    /**
+     * Stops sending, changes not sent yet are dropped.
+     */
+    public void shutdown() {
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,91 @@
+package at.jku.softengws20.group1.detection.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficLightTest {
+
+    private ManualClock clock;
+    private TrafficLight trafficLight;
+    private String first;
+    private String second;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(0);
+        Map<String, Street> streets = new HashMap<>();
+        streets.put("A", new Street("A", "X"));
+        streets.put("B", new Street("B", "X"));
+        trafficLight = new TrafficLight(streets, "X", clock);
+        first = trafficLight.getGreenRoads(0)[0];
+        second = first.equals("A") ? "B" : "A";
+    }
+
+    @Test
+    void standardPlan() {
+        //one run is split equally between the streets
+        long cycle = trafficLight.getPhaseTable().getCycle();
+        assertEquals(first, trafficLight.getGreenRoads(0)[0]);
+        assertEquals(second, trafficLight.getGreenRoads(cycle / 2)[0]);
+        assertEquals(first, trafficLight.getGreenRoads(cycle)[0]);
+        assertEquals(cycle / 2, trafficLight.getPhaseTable().nextChange(0));
+    }
+
+    @Test
+    void severalChangesWithinOneCycle() {
+        long cycle = trafficLight.getPhaseTable().getCycle();
+        long now = cycle * 2 / 3;
+        clock.set(now);
+
+        //rules for both streets, applied one after the other like setTrafficLightRules does
+        trafficLight.setPriority(first, 0.9);
+        trafficLight.setPriority(second, 0.1);
+
+        //the running phase is not cut short
+        assertEquals(second, trafficLight.getGreenRoads(now)[0]);
+        assertEquals(cycle, trafficLight.getPhaseTable().nextChange(now));
+        assertEquals(second, trafficLight.getGreenRoads(cycle - 1)[0]);
+
+        //the new plan starts with the next cycle
+        PhaseTable table = trafficLight.getPhaseTable();
+        assertEquals(cycle, table.getStart());
+        assertEquals(first, trafficLight.getGreenRoads(cycle)[0]);
+        long firstPhase = table.nextChange(cycle) - cycle;
+        assertEquals(second, trafficLight.getGreenRoads(cycle + firstPhase)[0]);
+        assertEquals(9 * (table.getCycle() - firstPhase), firstPhase, 1);
+
+        //a third change in the same cycle still keeps the running phase
+        trafficLight.standardPriority();
+        assertEquals(second, trafficLight.getGreenRoads(now)[0]);
+        assertEquals(cycle, trafficLight.getPhaseTable().nextChange(now));
+        assertEquals(cycle, trafficLight.getPhaseTable().getStart());
+        assertEquals(cycle / 2, trafficLight.getPhaseTable().nextChange(cycle) - cycle);
+    }
+
+    @Test
+    void changeWhileNewPlanRuns() {
+        long cycle = trafficLight.getPhaseTable().getCycle();
+        clock.set(cycle / 4);
+        trafficLight.setPriority(first, 0.5);
+        trafficLight.setPriority(second, 1.5);
+        PhaseTable table = trafficLight.getPhaseTable();
+        assertEquals(cycle, table.getStart());
+
+        //within the second plan, the next change starts with its next cycle
+        long now = cycle + table.getCycle() / 2;
+        clock.set(now);
+        trafficLight.standardPriority();
+        PhaseTable next = trafficLight.getPhaseTable();
+        assertEquals(cycle + table.getCycle(), next.getStart());
+        assertEquals(second, trafficLight.getGreenRoads(now)[0]);
+        assertEquals(next.getStart(), next.nextChange(now));
+        assertEquals(first, trafficLight.getGreenRoads(next.getStart())[0]);
+        //only one previous table is kept
+        assertNull(next.getPrevious().getPrevious());
+    }
+}
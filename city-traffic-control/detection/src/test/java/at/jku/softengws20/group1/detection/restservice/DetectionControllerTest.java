@@ -2,16 +2,21 @@ package at.jku.softengws20.group1.detection.restservice;
 
 import at.jku.softengws20.group1.detection.Map.CityMap;
 import at.jku.softengws20.group1.shared.TestMap;
+import at.jku.softengws20.group1.shared.detection.CarEventType;
 import at.jku.softengws20.group1.shared.impl.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 class DetectionControllerTest {
@@ -109,4 +114,144 @@ class DetectionControllerTest {
         //check outgoing cars working
         assertEquals(expectationWaitingCars, carsWaiting);
     }
-}
\ No newline at end of file
+
+    @Test           //check setCarEvents and Traffic load
+    void setCarEvents() {
+        //init
+        RoadNetwork map = controlSystemService.getRoadNetwork();
+        String firstRoadSegmentId = map.getCrossings()[0].getRoadSegmentIds()[0];
+        String secondRoadSegmentId = map.getCrossings()[2].getRoadSegmentIds()[0];
+        CarEvent[] events = new CarEvent[10];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new CarEvent(i, CarEventType.ENTER, firstRoadSegmentId);
+        }
+        detectionController.setCarEvents(events);          //API: setCarEvents
+        assertEquals(10, carsWaiting(firstRoadSegmentId));
+
+        //three cars drive on, one arrives
+        detectionController.setCarEvents(new CarEvent[]{
+                new CarEvent(0, CarEventType.LEAVE, firstRoadSegmentId),
+                new CarEvent(0, CarEventType.ENTER, secondRoadSegmentId),
+                new CarEvent(1, CarEventType.LEAVE, firstRoadSegmentId),
+                new CarEvent(1, CarEventType.ENTER, secondRoadSegmentId),
+                new CarEvent(2, CarEventType.LEAVE, firstRoadSegmentId),
+                new CarEvent(2, CarEventType.ENTER, secondRoadSegmentId),
+                new CarEvent(3, CarEventType.ARRIVE, firstRoadSegmentId)});
+        assertEquals(6, carsWaiting(firstRoadSegmentId));
+        assertEquals(3, carsWaiting(secondRoadSegmentId));
+    }
+
+    @Test           //check trafficLoad?since=N
+    void getTrafficLoadChanges() {
+        //first poll: all streets
+        TrafficLoadChanges changes = detectionController.getTrafficLoad(0);
+        assertTrue(changes.isFull());
+        assertEquals(TestMap.loadDummyMap().getRoadSegments().length, changes.getTrafficLoad().length);
+        long sequence = changes.getSequence();
+
+        //nothing changed
+        changes = detectionController.getTrafficLoad(sequence);
+        assertFalse(changes.isFull());
+        assertEquals(0, changes.getTrafficLoad().length);
+        assertEquals(sequence, changes.getSequence());
+
+        //only the changed street
+        String roadSegmentId = controlSystemService.getRoadNetwork().getCrossings()[0].getRoadSegmentIds()[0];
+        detectionController.setCarEvents(new CarEvent[]{
+                new CarEvent(0, CarEventType.ENTER, roadSegmentId),
+                new CarEvent(1, CarEventType.ENTER, roadSegmentId)});
+        changes = detectionController.getTrafficLoad(sequence);
+        assertFalse(changes.isFull());
+        assertTrue(changes.getSequence() > sequence);
+        assertEquals(1, changes.getTrafficLoad().length);
+        assertEquals(roadSegmentId, changes.getTrafficLoad()[0].getRoadSegmentId());
+        assertEquals(2, changes.getTrafficLoad()[0].getCarsWaiting());
+
+        //unknown sequence number: full resync
+        changes = detectionController.getTrafficLoad(changes.getSequence() + 1);
+        assertTrue(changes.isFull());
+        assertEquals(TestMap.loadDummyMap().getRoadSegments().length, changes.getTrafficLoad().length);
+    }
+
+    @Test           //check a batch large enough to be split by shard and applied in parallel
+    void setCarPositionLargeBatch() {
+        RoadSegment[] segments = controlSystemService.getRoadNetwork().getRoadSegments();
+        Random random = new Random(1);
+        Map<String, String> streetOfCar = new HashMap<>();
+        for (int round = 0; round < 5; round++) {
+            //fewer cars than positions, so some cars move twice within a batch and the last position counts
+            CarPosition[] positions = new CarPosition[2048];
+            for (int i = 0; i < positions.length; i++) {
+                String carId = String.valueOf(random.nextInt(1500));
+                RoadSegment segment = segments[random.nextInt(segments.length)];
+                if (round > 0 && random.nextInt(10) == 0) {
+                    positions[i] = new CarPosition(carId, segment.getCrossingBId(), null);     //car arrived
+                    streetOfCar.remove(carId);
+                } else {
+                    positions[i] = new CarPosition(carId, segment.getCrossingBId(), segment.getId());
+                    streetOfCar.put(carId, segment.getId());
+                }
+            }
+            detectionController.setCarPosition(positions);       //API: setCarPosition
+            assertCarsWaiting(streetOfCar);
+        }
+    }
+
+    @Test           //check removals from the car map, the cars after a removed one have to be found again
+    void setCarPositionRemovals() {
+        RoadSegment[] segments = controlSystemService.getRoadNetwork().getRoadSegments();
+        Map<String, String> streetOfCar = new HashMap<>();
+        //enough cars per shard that the car map grows and has many collisions
+        CarPosition[] positions = new CarPosition[8192];
+        for (int i = 0; i < positions.length; i++) {
+            RoadSegment segment = segments[i % segments.length];
+            positions[i] = new CarPosition(String.valueOf(i), segment.getCrossingBId(), segment.getId());
+            streetOfCar.put(String.valueOf(i), segment.getId());
+        }
+        detectionController.setCarPosition(positions);
+        assertCarsWaiting(streetOfCar);
+
+        //every other car arrives, the rest moves on to the next segment
+        for (int i = 0; i < positions.length; i++) {
+            RoadSegment segment = segments[(i + 1) % segments.length];
+            String carId = String.valueOf(i);
+            if (i % 2 == 0) {
+                positions[i] = new CarPosition(carId, segment.getCrossingBId(), null);
+                streetOfCar.remove(carId);
+            } else {
+                positions[i] = new CarPosition(carId, segment.getCrossingBId(), segment.getId());
+                streetOfCar.put(carId, segment.getId());
+            }
+        }
+        detectionController.setCarPosition(positions);
+        assertCarsWaiting(streetOfCar);
+
+        //all remaining cars arrive in a small batch each, so removals run one after the other
+        for (int from = 1; from < positions.length; from += 512) {
+            CarPosition[] batch = new CarPosition[256];
+            for (int i = 0; i < batch.length; i++) {
+                String carId = String.valueOf(from + 2 * i);
+                batch[i] = new CarPosition(carId, segments[0].getCrossingBId(), null);
+                streetOfCar.remove(carId);
+            }
+            detectionController.setCarPosition(batch);
+            assertCarsWaiting(streetOfCar);
+        }
+        assertTrue(streetOfCar.isEmpty());
+    }
+
+    private void assertCarsWaiting(Map<String, String> streetOfCar) {
+        Map<String, Integer> expected = new HashMap<>();
+        for (String street : streetOfCar.values()) expected.merge(street, 1, Integer::sum);
+        for (final TrafficLoad load : detectionController.getTrafficLoad()) {
+            assertEquals((int) expected.getOrDefault(load.getRoadSegmentId(), 0), load.getCarsWaiting(), load.getRoadSegmentId());
+        }
+    }
+
+    private int carsWaiting(String roadSegmentId) {
+        for (final TrafficLoad load : detectionController.getTrafficLoad()) {
+            if (load.getRoadSegmentId().equals(roadSegmentId)) return load.getCarsWaiting();
+        }
+        return -1;
+    }
+}
@@ -48,6 +48,12 @@ public class MaintenanceController implements MaintenanceInterface<MaintenanceRe
         vehicleCenter.triggerCarArrived(carId);
     }
 
+    @Override
+    @PostMapping(MaintenanceInterface.NOTIFY_MAINTENANCE_CAR_ARRIVED_URL)
+    public void notifyMaintenanceCarsArrived(@RequestBody String[] carIds) {
+        for (String carId : carIds) vehicleCenter.triggerCarArrived(carId);
+    }
+
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
 
@@ -0,0 +1,134 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static at.jku.softengws20.group1.participants.roadNetwork.RoadGraph.NONE;
+
+/**
+ * Goal directed search from the current crossing to the start of the destination road.
+ * The {@link LowerBound} decides how many crossings have to be settled, see {@link EuclideanBound} and
+ * {@link LandmarkBound}.
+ */
+class AStarRouter implements Router {
+    private final RoadGraph graph;
+    private final LowerBound bound;
+    private final HashMap<Long, Integer> getNextCache = new HashMap<>();
+    private final ThreadLocal<Search> searches;
+    private int generation = 0;
+
+    AStarRouter(RoadGraph graph, LowerBound bound) {
+        this.graph = graph;
+        this.bound = bound;
+        searches = ThreadLocal.withInitial(Search::new);
+    }
+
+    @Override
+    public int getNext(int current, int destination) {
+        if (graph.isClosed(destination)) return NONE;
+        Long key = (long) current * graph.getRoadCount() + destination;
+        int startGeneration;
+        synchronized (getNextCache) {
+            Integer cached = getNextCache.get(key);
+            if (cached != null) return cached;
+            startGeneration = generation;
+        }
+
+        int next = searches.get().run(current, destination);
+        synchronized (getNextCache) {
+            if (generation == startGeneration) getNextCache.put(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public int[] getRoute(int road, int destination) {
+        return Router.followNextHops(this, graph, road, destination);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (getNextCache) {
+            generation++;
+            getNextCache.clear();
+        }
+    }
+
+    /**
+     * The bounds do not depend on the estimated speeds, only the cached routes are outdated.
+     */
+    @Override
+    public void roadsChanged(int[] roads) {
+        clear();
+    }
+
+    /**
+     * Search state of one thread, reused between queries.
+     */
+    private class Search {
+        private final double[] cost = new double[graph.getCrossingCount()];
+        /**
+         * first road of the best known path to a crossing
+         */
+        private final int[] first = new int[graph.getCrossingCount()];
+        /**
+         * lower bound of the remaining cost, computed once per crossing and query
+         */
+        private final double[] estimate = new double[graph.getCrossingCount()];
+        private final int[] touched = new int[graph.getCrossingCount()];
+        private final NodeHeap heap = new NodeHeap(graph.getCrossingCount());
+        private int touchedCount = 0;
+
+        Search() {
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        }
+
+        int run(int current, int destination) {
+            int target = graph.getStart(destination);
+            int next = NONE;
+            //the first road is free, so every crossing next to the current one starts with cost 0
+            for (int i = graph.getOutStart(current); i < graph.getOutStart(current + 1); i++) {
+                int road = graph.getOutRoad(i);
+                if (graph.isClosed(road)) continue;
+                if (road == destination) {
+                    next = road;
+                    break;
+                }
+                int end = graph.getEnd(road);
+                if (cost[end] == 0 && Router.cost(graph, road) >= Router.cost(graph, first[end])) continue;
+                relax(end, 0, road, target);
+            }
+            while (next == NONE && !heap.isEmpty()) {
+                int node = heap.poll();
+                if (node == target) {
+                    next = first[node];
+                    break;
+                }
+                for (int i = graph.getOutStart(node); i < graph.getOutStart(node + 1); i++) {
+                    int road = graph.getOutRoad(i);
+                    if (!graph.isClosed(road))
+                        relax(graph.getEnd(road), cost[node] + Router.cost(graph, road), first[node], target);
+                }
+            }
+            heap.clear();
+            for (int i = 0; i < touchedCount; i++) cost[touched[i]] = Double.POSITIVE_INFINITY;
+            touchedCount = 0;
+            return next;
+        }
+
+        private void relax(int node, double candidate, int firstRoad, int target) {
+            if (cost[node] == Double.POSITIVE_INFINITY) {
+                //an infinite bound proves that the target can not be reached from this crossing
+                double remaining = bound.get(node, target);
+                if (remaining == Double.POSITIVE_INFINITY) return;
+                touched[touchedCount++] = node;
+                estimate[node] = remaining;
+            } else if (candidate > cost[node] || (candidate == cost[node] && cost[node] != 0)) return;
+            cost[node] = candidate;
+            first[node] = firstRoad;
+            heap.offer(node, candidate + estimate[node]);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+import static at.jku.softengws20.group1.participants.roadNetwork.RoadGraph.NONE;
+
+/**
+ * Customizable contraction hierarchy over the crossings of the road network.
+ * <p>
+ * The preprocessing only depends on the topology: crossings are contracted in minimum degree order and every
+ * pair of remaining neighbours of a contracted crossing gets a shortcut. The weights of all arcs are computed
+ * in a separate customization step by walking the lower triangles of each arc, so changed estimated speeds or
+ * closed roads only require a new customization, not a new hierarchy.
+ * <p>
+ * Queries are bidirectional Dijkstra searches that only follow arcs to higher ranked crossings.
+ */
+class ContractionHierarchyRouter implements Router {
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final RoadGraph graph;
+    private final int[] rank;
+    private final int[] byRank;
+    /**
+     * arcs to higher ranked crossings in compressed sparse row format, targets sorted by crossing index
+     */
+    private final int[] upStart;
+    private final int[] upTarget;
+    private final HashMap<Long, Integer> getNextCache = new HashMap<>();
+    private final ThreadLocal<Query> queries;
+    private volatile Metric metric;
+    private volatile boolean customized;
+
+    ContractionHierarchyRouter(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.getCrossingCount();
+        rank = new int[n];
+        byRank = new int[n];
+        upStart = new int[n + 1];
+        upTarget = contract(n);
+        queries = ThreadLocal.withInitial(() -> new Query(n));
+        metric = customize();
+        customized = true;
+    }
+
+    @Override
+    public int getNext(int current, int destination) {
+        if (graph.isClosed(destination)) return NONE;
+        Metric metric = getMetric();
+        Long key = (long) current * graph.getRoadCount() + destination;
+        synchronized (getNextCache) {
+            if (metric == this.metric && getNextCache.containsKey(key)) return getNextCache.get(key);
+        }
+
+        Query query = queries.get();
+        query.searchBackward(metric, graph.getStart(destination));
+        int next = NONE;
+        double best = INFINITY;
+        double bestOwnCost = INFINITY;
+        //the first road is free, so only the cost after it decides where to go; ties go to the faster road
+        for (int i = graph.getOutStart(current); i < graph.getOutStart(current + 1); i++) {
+            int road = graph.getOutRoad(i);
+            if (graph.isClosed(road)) continue;
+            double remaining = road == destination ? 0 :
+                    query.searchForward(metric, graph.getEnd(road)) + Router.cost(graph, destination);
+            double ownCost = Router.cost(graph, road);
+            if (remaining < best || (remaining == best && remaining < INFINITY && ownCost < bestOwnCost)) {
+                best = remaining;
+                bestOwnCost = ownCost;
+                next = road;
+            }
+        }
+        query.resetBackward();
+
+        synchronized (getNextCache) {
+            if (metric == this.metric) getNextCache.put(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public int[] getRoute(int road, int destination) {
+        return Router.followNextHops(this, graph, road, destination);
+    }
+
+    /**
+     * Marks the weights as outdated, they are customized again on the next query.
+     */
+    @Override
+    public void clear() {
+        customized = false;
+    }
+
+    /**
+     * The hierarchy does not depend on the weights, so a change is handled by a new customization.
+     */
+    @Override
+    public void roadsChanged(int[] roads) {
+        clear();
+    }
+
+    private Metric getMetric() {
+        if (!customized) {
+            synchronized (this) {
+                if (!customized) {
+                    customized = true;
+                    Metric metric = customize();
+                    synchronized (getNextCache) {
+                        this.metric = metric;
+                        getNextCache.clear();
+                    }
+                }
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Contracts all crossings in minimum degree order.
+     * @return the targets of the upward arcs, {@link #upStart} is filled as side effect
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int[] contract(int n) {
+        HashSet<Integer>[] neighbours = new HashSet[n];
+        for (int i = 0; i < n; i++) neighbours[i] = new HashSet<>();
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            int a = graph.getStart(road);
+            int b = graph.getEnd(road);
+            if (a == b) continue;
+            neighbours[a].add(b);
+            neighbours[b].add(a);
+        }
+
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) queue.add(((long) neighbours[i].size() << 32) | i);
+        boolean[] contracted = new boolean[n];
+        int[][] up = new int[n][];
+        int next = 0;
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int node = (int) entry;
+            if (contracted[node] || (int) (entry >>> 32) != neighbours[node].size()) continue;
+            contracted[node] = true;
+            rank[node] = next;
+            byRank[next++] = node;
+
+            int[] remaining = neighbours[node].stream().mapToInt(Integer::intValue).sorted().toArray();
+            up[node] = remaining;
+            for (int a : remaining) {
+                neighbours[a].remove(node);
+                for (int b : remaining) {
+                    if (a != b) neighbours[a].add(b);
+                }
+                queue.add(((long) neighbours[a].size() << 32) | a);
+            }
+            neighbours[node] = null;
+        }
+
+        for (int i = 0; i < n; i++) upStart[i + 1] = upStart[i] + up[i].length;
+        int[] targets = new int[upStart[n]];
+        for (int i = 0; i < n; i++) System.arraycopy(up[i], 0, targets, upStart[i], up[i].length);
+        return targets;
+    }
+
+    private int arc(int lower, int higher) {
+        return Arrays.binarySearch(upTarget, upStart[lower], upStart[lower + 1], higher);
+    }
+
+    /**
+     * Computes the weights of all arcs from the current state of the roads.
+     */
+    private Metric customize() {
+        Metric metric = new Metric(upTarget.length);
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            if (graph.isClosed(road)) continue;
+            int a = graph.getStart(road);
+            int b = graph.getEnd(road);
+            if (a == b) continue;
+            double cost = Router.cost(graph, road);
+            if (rank[a] < rank[b]) {
+                int arc = arc(a, b);
+                metric.up[arc] = Math.min(metric.up[arc], cost);
+            } else {
+                int arc = arc(b, a);
+                metric.down[arc] = Math.min(metric.down[arc], cost);
+            }
+        }
+
+        //lower triangles: the arcs of a crossing are final once all lower ranked crossings are processed
+        for (int node : byRank) {
+            for (int i = upStart[node]; i < upStart[node + 1]; i++) {
+                for (int j = i + 1; j < upStart[node + 1]; j++) {
+                    int lowArc = i;
+                    int highArc = j;
+                    if (rank[upTarget[i]] > rank[upTarget[j]]) {
+                        lowArc = j;
+                        highArc = i;
+                    }
+                    int arc = arc(upTarget[lowArc], upTarget[highArc]);
+                    metric.up[arc] = Math.min(metric.up[arc], metric.down[lowArc] + metric.up[highArc]);
+                    metric.down[arc] = Math.min(metric.down[arc], metric.down[highArc] + metric.up[lowArc]);
+                }
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Arc weights of one customization. {@code up} is the weight from the lower to the higher crossing,
+     * {@code down} the weight in the other direction.
+     */
+    private static class Metric {
+        private final double[] up;
+        private final double[] down;
+
+        Metric(int arcs) {
+            up = new double[arcs];
+            down = new double[arcs];
+            Arrays.fill(up, INFINITY);
+            Arrays.fill(down, INFINITY);
+        }
+    }
+
+    /**
+     * Search state of one thread, reused between queries.
+     */
+    private class Query {
+        private final double[] forward;
+        private final double[] backward;
+        private final int[] touchedForward;
+        private final int[] touchedBackward;
+        private final NodeHeap heap;
+        private int touchedForwardCount = 0;
+        private int touchedBackwardCount = 0;
+
+        Query(int n) {
+            forward = new double[n];
+            backward = new double[n];
+            touchedForward = new int[n];
+            touchedBackward = new int[n];
+            heap = new NodeHeap(n);
+            Arrays.fill(forward, INFINITY);
+            Arrays.fill(backward, INFINITY);
+        }
+
+        /**
+         * Settles the whole upward search space of the target using the reversed arcs.
+         */
+        void searchBackward(Metric metric, int target) {
+            heap.offer(target, 0);
+            while (!heap.isEmpty()) {
+                double cost = heap.peekKey();
+                int node = heap.poll();
+                backward[node] = cost;
+                touchedBackward[touchedBackwardCount++] = node;
+                for (int arc = upStart[node]; arc < upStart[node + 1]; arc++) {
+                    int higher = upTarget[arc];
+                    if (backward[higher] == INFINITY && metric.down[arc] < INFINITY)
+                        heap.offer(higher, cost + metric.down[arc]);
+                }
+            }
+        }
+
+        /**
+         * @return the cost from the source to the target of the last backward search
+         */
+        double searchForward(Metric metric, int source) {
+            double best = INFINITY;
+            heap.offer(source, 0);
+            while (!heap.isEmpty() && heap.peekKey() < best) {
+                double cost = heap.peekKey();
+                int node = heap.poll();
+                forward[node] = cost;
+                touchedForward[touchedForwardCount++] = node;
+                if (backward[node] < INFINITY) best = Math.min(best, cost + backward[node]);
+                for (int arc = upStart[node]; arc < upStart[node + 1]; arc++) {
+                    int higher = upTarget[arc];
+                    if (forward[higher] == INFINITY && metric.up[arc] < INFINITY)
+                        heap.offer(higher, cost + metric.up[arc]);
+                }
+            }
+            heap.clear();
+            for (int i = 0; i < touchedForwardCount; i++) forward[touchedForward[i]] = INFINITY;
+            touchedForwardCount = 0;
+            return best;
+        }
+
+        void resetBackward() {
+            for (int i = 0; i < touchedBackwardCount; i++) backward[touchedBackward[i]] = INFINITY;
+            touchedBackwardCount = 0;
+        }
+    }
+}
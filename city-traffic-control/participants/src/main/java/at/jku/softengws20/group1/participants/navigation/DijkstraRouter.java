@@ -0,0 +1,166 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static at.jku.softengws20.group1.participants.roadNetwork.RoadGraph.NONE;
+
+class DijkstraRouter implements Router {
+    private final RoadGraph graph;
+    private final HashMap<Long, Integer> getNextCache = new HashMap<>();
+    /**
+     * cached routes by the roads of their path, so a slower or closed road only drops the routes using it.
+     * A route dropped over one road stays in the sets of its other roads, the sets keep it only once.
+     */
+    private final HashSet<Long>[] routesByRoad;
+    /**
+     * cost of every road when it was last seen by {@link #roadsChanged(int[])}
+     */
+    private final double[] knownCost;
+    private final ThreadLocal<Search> searches;
+    private int generation = 0;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    DijkstraRouter(RoadGraph graph) {
+        this.graph = graph;
+        routesByRoad = new HashSet[graph.getRoadCount()];
+        knownCost = new double[graph.getRoadCount()];
+        for (int road = 0; road < graph.getRoadCount(); road++) knownCost[road] = currentCost(road);
+        searches = ThreadLocal.withInitial(Search::new);
+    }
+
+    private double currentCost(int road) {
+        return graph.isClosed(road) ? Double.POSITIVE_INFINITY : Router.cost(graph, road);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (getNextCache) {
+            generation++;
+            getNextCache.clear();
+            Arrays.fill(routesByRoad, null);
+        }
+    }
+
+    /**
+     * A road getting more expensive can only affect the routes using it. A cheaper road may shorten any route
+     * and make unreachable destinations reachable, so the whole cache is dropped.
+     */
+    @Override
+    public void roadsChanged(int[] roads) {
+        boolean cheaper = false;
+        for (int road : roads) {
+            double cost = currentCost(road);
+            if (cost < knownCost[road]) cheaper = true;
+            knownCost[road] = cost;
+        }
+        if (cheaper) {
+            clear();
+            return;
+        }
+        synchronized (getNextCache) {
+            generation++;
+            for (int road : roads) {
+                HashSet<Long> routes = routesByRoad[road];
+                if (routes == null) continue;
+                for (Long route : routes) getNextCache.remove(route);
+                routesByRoad[road] = null;
+            }
+        }
+    }
+
+    @Override
+    public int getNext(int current, int destination) {
+        Long key = (long) current * graph.getRoadCount() + destination;
+        int startGeneration;
+        synchronized (getNextCache) {
+            Integer cached = getNextCache.get(key);
+            if (cached != null) return cached;
+            startGeneration = generation;
+        }
+
+        Search search = searches.get();
+        int next = search.run(current, destination);
+        synchronized (getNextCache) {
+            if (generation == startGeneration && getNextCache.put(key, next) == null && next != NONE) {
+                for (int road = destination; road != NONE; road = search.previous[road]) {
+                    if (routesByRoad[road] == null) routesByRoad[road] = new HashSet<>();
+                    routesByRoad[road].add(key);
+                }
+            }
+        }
+        search.reset();
+        return next;
+    }
+
+    @Override
+    public int[] getRoute(int road, int destination) {
+        return Router.followNextHops(this, graph, road, destination);
+    }
+
+    /**
+     * Dijkstra over the roads, a road is settled with the cost until its end. Reused between queries of a thread.
+     */
+    private class Search {
+        private final double[] cost = new double[graph.getRoadCount()];
+        private final int[] previous = new int[graph.getRoadCount()];
+        /**
+         * cost of the first road of the best known path, breaks ties like the other routers
+         */
+        private final double[] firstCost = new double[graph.getRoadCount()];
+        private final int[] touched = new int[graph.getRoadCount()];
+        private final NodeHeap heap = new NodeHeap(graph.getRoadCount());
+        private int touchedCount = 0;
+
+        Search() {
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * @return the first road of the cheapest path, the path itself is left in {@link #previous}
+         */
+        int run(int current, int destination) {
+            //the first road is free, so only the cost after it decides where to go; ties go to the faster road
+            for (int i = graph.getOutStart(current); i < graph.getOutStart(current + 1); i++) {
+                int road = graph.getOutRoad(i);
+                if (!graph.isClosed(road)) relax(road, 0, NONE, Router.cost(graph, road));
+            }
+            while (!heap.isEmpty()) {
+                int road = heap.poll();
+                if (road == destination) {
+                    int first = road;
+                    while (previous[first] != NONE) first = previous[first];
+                    heap.clear();
+                    return first;
+                }
+                int end = graph.getEnd(road);
+                for (int i = graph.getOutStart(end); i < graph.getOutStart(end + 1); i++) {
+                    int next = graph.getOutRoad(i);
+                    if (!graph.isClosed(next)) relax(next, cost[road] + Router.cost(graph, next), road, firstCost[road]);
+                }
+            }
+            return NONE;
+        }
+
+        /**
+         * Every road after the first costs at least 1, so a road is never reached with the same cost
+         * after it was settled and the tie-break on the first road holds along the whole path.
+         */
+        private void relax(int road, double candidate, int from, double candidateFirstCost) {
+            if (candidate > cost[road] || (candidate == cost[road] && candidateFirstCost >= firstCost[road])) return;
+            if (cost[road] == Double.POSITIVE_INFINITY) touched[touchedCount++] = road;
+            cost[road] = candidate;
+            previous[road] = from;
+            firstCost[road] = candidateFirstCost;
+            heap.offer(road, candidate);
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) cost[touched[i]] = Double.POSITIVE_INFINITY;
+            touchedCount = 0;
+        }
+    }
+}
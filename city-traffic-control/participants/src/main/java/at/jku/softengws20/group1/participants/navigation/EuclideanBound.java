@@ -0,0 +1,39 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+/**
+ * Straight line distance driven at the highest speed limit of the network.
+ * Estimated speeds never exceed the speed limit, so this stays a lower bound when the traffic changes.
+ */
+class EuclideanBound implements LowerBound {
+    private final RoadGraph graph;
+    /**
+     * seconds per coordinate unit at the highest speed limit
+     */
+    private final double scale;
+
+    EuclideanBound(RoadGraph graph) {
+        this.graph = graph;
+        //coordinates and road lengths use different units, so take the smallest ratio of any road
+        double metersPerUnit = Double.POSITIVE_INFINITY;
+        double maxSpeed = 0;
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            double distance = distance(graph.getStart(road), graph.getEnd(road));
+            if (distance > 0) metersPerUnit = Math.min(metersPerUnit, graph.getLength(road) / distance);
+            maxSpeed = Math.max(maxSpeed, graph.getSpeedLimit(road));
+        }
+        scale = metersPerUnit == Double.POSITIVE_INFINITY ? 0 : metersPerUnit / maxSpeed;
+    }
+
+    private double distance(int a, int b) {
+        double x = graph.getX(a) - graph.getX(b);
+        double y = graph.getY(a) - graph.getY(b);
+        return Math.sqrt(x * x + y * y);
+    }
+
+    @Override
+    public double get(int crossing, int target) {
+        return distance(crossing, target) * scale;
+    }
+}
@@ -0,0 +1,117 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * ALT bound (A*, landmarks, triangle inequality). The costs to and from a few landmark crossings are computed
+ * once, using the speed limit instead of the estimated speed and ignoring closed roads. Those tables stay valid
+ * while the traffic changes, because the real costs can only be higher.
+ */
+class LandmarkBound implements LowerBound {
+    private final RoadGraph graph;
+    private final int[] landmarks;
+    /**
+     * [landmark][crossing] cost from the landmark to the crossing
+     */
+    private final double[][] from;
+    /**
+     * [landmark][crossing] cost from the crossing to the landmark
+     */
+    private final double[][] to;
+
+    LandmarkBound(RoadGraph graph, int count) {
+        this.graph = graph;
+        landmarks = selectLandmarks(Math.min(count, graph.getCrossingCount()));
+        from = new double[landmarks.length][];
+        to = new double[landmarks.length][];
+        IntStream.range(0, landmarks.length * 2).parallel().forEach(i -> {
+            if (i < landmarks.length) from[i] = search(landmarks[i], false);
+            else to[i - landmarks.length] = search(landmarks[i - landmarks.length], true);
+        });
+    }
+
+    /**
+     * Farthest point selection on the coordinates, starting with the crossing farthest from the center.
+     * Spreads the landmarks along the border of the map, where they give the best bounds.
+     */
+    private int[] selectLandmarks(int count) {
+        int n = graph.getCrossingCount();
+        double centerX = 0;
+        double centerY = 0;
+        for (int crossing = 0; crossing < n; crossing++) {
+            centerX += graph.getX(crossing) / n;
+            centerY += graph.getY(crossing) / n;
+        }
+        double[] nearest = new double[n];
+        for (int crossing = 0; crossing < n; crossing++)
+            nearest[crossing] = squaredDistance(crossing, centerX, centerY);
+        int[] selected = new int[count];
+        for (int i = 0; i < count; i++) {
+            int farthest = 0;
+            for (int crossing = 1; crossing < n; crossing++) {
+                if (nearest[crossing] > nearest[farthest]) farthest = crossing;
+            }
+            selected[i] = farthest;
+            //the center only picks the first landmark, afterwards the distance to the selected ones counts
+            if (i == 0) Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+            for (int crossing = 0; crossing < n; crossing++) {
+                nearest[crossing] = Math.min(nearest[crossing],
+                        squaredDistance(crossing, graph.getX(farthest), graph.getY(farthest)));
+            }
+        }
+        return selected;
+    }
+
+    private double squaredDistance(int crossing, double x, double y) {
+        double dx = graph.getX(crossing) - x;
+        double dy = graph.getY(crossing) - y;
+        return dx * dx + dy * dy;
+    }
+
+    private double minimalCost(int road) {
+        return graph.getLength(road) / graph.getSpeedLimit(road) + 1;
+    }
+
+    /**
+     * Dijkstra from the landmark, on the reversed roads if {@code backward} is set.
+     */
+    private double[] search(int landmark, boolean backward) {
+        double[] cost = new double[graph.getCrossingCount()];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        NodeHeap heap = new NodeHeap(graph.getCrossingCount());
+        cost[landmark] = 0;
+        heap.offer(landmark, 0);
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            int begin = backward ? graph.getInStart(node) : graph.getOutStart(node);
+            int end = backward ? graph.getInStart(node + 1) : graph.getOutStart(node + 1);
+            for (int i = begin; i < end; i++) {
+                int road = backward ? graph.getInRoad(i) : graph.getOutRoad(i);
+                int other = backward ? graph.getStart(road) : graph.getEnd(road);
+                double candidate = cost[node] + minimalCost(road);
+                if (candidate < cost[other]) {
+                    cost[other] = candidate;
+                    heap.offer(other, candidate);
+                }
+            }
+        }
+        return cost;
+    }
+
+    @Override
+    public double get(int crossing, int target) {
+        double bound = 0;
+        for (int i = 0; i < landmarks.length; i++) {
+            //crossing -> target -> landmark is not shorter than crossing -> landmark
+            double viaTo = to[i][crossing] - to[i][target];
+            //landmark -> crossing -> target is not shorter than landmark -> target
+            double viaFrom = from[i][target] - from[i][crossing];
+            if (viaTo > bound && to[i][target] < Double.POSITIVE_INFINITY) bound = viaTo;
+            if (viaFrom > bound && from[i][crossing] < Double.POSITIVE_INFINITY) bound = viaFrom;
+        }
+        return bound;
+    }
+}
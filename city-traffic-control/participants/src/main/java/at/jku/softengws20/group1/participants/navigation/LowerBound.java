@@ -0,0 +1,10 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+/**
+ * Lower bound of the travel cost between two crossings, used as potential by {@link AStarRouter}.
+ * Implementations have to be consistent: for every road from u to v, {@code get(u, t) - get(v, t)} must not
+ * exceed the cost of the road, also after estimated speeds dropped or roads were closed.
+ */
+interface LowerBound {
+    double get(int crossing, int target);
+}
@@ -3,17 +3,34 @@ package at.jku.softengws20.group1.participants.navigation;
 
 import at.jku.softengws20.group1.participants.roadNetwork.Crossing;
 import at.jku.softengws20.group1.participants.roadNetwork.Road;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
 import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.shared.Config;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class Navigation {
-    private final HashMap<NavigationPair, Road> getNextCache = new HashMap<>();
+    private final RoutingMode mode;
+    private final ConcurrentLinkedQueue<RoadState> changedRoads = new ConcurrentLinkedQueue<>();
     private RoadNetwork roadNetwork;
-    private int version;
+    private Router router;
+    /**
+     * route version in which a road was last closed or got much slower
+     */
+    private int[] degradedAt;
+    /**
+     * cost of a road when it last counted as degraded, or the lowest cost since
+     */
+    private double[] referenceCost;
+    private volatile int routeVersion = 0;
+
+    public Navigation() {
+        this(RoutingMode.valueOf(Config.PARTICIPANTS_ROUTING_MODE));
+    }
+
+    public Navigation(RoutingMode mode) {
+        this.mode = mode;
+    }
 
     public RoadNetwork getRoadNetwork() {
         return roadNetwork;
@@ -21,96 +38,110 @@ public class Navigation {
 
     public void setRoadNetwork(RoadNetwork roadNetwork) {
         this.roadNetwork = roadNetwork;
-        version = roadNetwork.getVersion();
+        router = mode.create(roadNetwork);
+        degradedAt = new int[roadNetwork.roads.length];
+        referenceCost = new double[roadNetwork.roads.length];
+        for (int road = 0; road < referenceCost.length; road++) referenceCost[road] = currentCost(road);
+        routeVersion = 0;
+    }
+
+    private double currentCost(int road) {
+        return roadNetwork.graph.isClosed(road) ? Double.POSITIVE_INFINITY : Router.cost(roadNetwork.graph, road);
     }
 
     public Road getNext(Crossing current, Road destination) {
-        synchronized (getNextCache) {
-            if (roadNetwork.getVersion() == version) {
-                var key = new NavigationPair(current, destination);
-                if (getNextCache.containsKey(key)) return getNextCache.get(key);
-            } else {
-                version = roadNetwork.getVersion();
-                getNextCache.clear();
-            }
-        }
+        int next = getNext(current.getIndex(), destination.getIndex());
+        return next == RoadGraph.NONE ? null : roadNetwork.roads[next];
+    }
 
-        PriorityQueue<Node> queue = new PriorityQueue<>();
-        HashSet<Road> visited = new HashSet<>();
-        for (Road road : current.getRoads()) {
-            if (!road.isClosed()) queue.add(new Node(0, road, null));
-        }
-        Road next = null;
-        while (!queue.isEmpty()) {
-            Node n = queue.poll();
-            if (visited.contains(n.road)) continue;
-            visited.add(n.road);
-            if (n.road.getId().equals(destination.getId())) {
-                next = n.getFirst();
-                break;
-            }
-            for (Road road : n.road.getEnd().getRoads()) {
-                if (!road.isClosed())
-                    queue.add(new Node(n.cost + road.getLength() / road.getEstimatedSpeed() + 1, road, n));
-            }
-        }
-        synchronized (getNextCache) {
-            if (roadNetwork.getVersion() == version)
-                getNextCache.put(new NavigationPair(current, destination), next);
-        }
-        return next;
+    /**
+     * Same as {@link #getNext(Crossing, Road)}, but on the indices of {@link RoadNetwork#graph}.
+     * @return the index of the next road or {@link RoadGraph#NONE}
+     */
+    public int getNext(int current, int destination) {
+        return router.getNext(current, destination);
     }
 
-    private static class Node implements Comparable<Node> {
-        public final double cost;
-        public final Road road;
-        public final Node previous;
+    /**
+     * Remembers the new state of a road. It is applied to the road and the cached routes on the next
+     * {@link #update()}, so the road graph does not change while participants drive or ask for routes.
+     *
+     * @param estimatedSpeed new estimated speed, {@link Double#NaN} to keep the current one
+     */
+    public void setRoadState(Road road, boolean closed, double estimatedSpeed) {
+        changedRoads.add(new RoadState(road, closed, estimatedSpeed));
+    }
 
-        public Node(double cost, Road road, Node previous) {
-            this.cost = cost;
-            this.road = road;
-            this.previous = previous;
+    /**
+     * Applies the changes reported since the last call. Has to be called between ticks,
+     * while no participant asks for a route.
+     */
+    public void update() {
+        if (changedRoads.isEmpty()) return;
+        boolean[] changed = new boolean[roadNetwork.roads.length];
+        int count = 0;
+        for (RoadState state = changedRoads.poll(); state != null; state = changedRoads.poll()) {
+            Road road = state.road;
+            road.setClosed(state.closed);
+            if (!Double.isNaN(state.estimatedSpeed)) road.setEstimatedSpeed(state.estimatedSpeed);
+            if (!changed[road.getIndex()]) count++;
+            changed[road.getIndex()] = true;
         }
-
-        @Override
-        public int compareTo(Node o) {
-            return Double.compare(cost, o.cost);
+        int[] roads = new int[count];
+        for (int road = 0, i = 0; i < count; road++) {
+            if (changed[road]) roads[i++] = road;
         }
-
-        public Road getFirst() {
-            if (previous == null) return road;
-            else return previous.getFirst();
+        router.roadsChanged(roads);
+
+        int newVersion = routeVersion + 1;
+        boolean degraded = false;
+        for (int road : roads) {
+            double cost = currentCost(road);
+            if (cost > referenceCost[road] * (1 + Config.PARTICIPANTS_SPEED_CHANGE_THRESHOLD)) {
+                degradedAt[road] = newVersion;
+                degraded = true;
+                referenceCost[road] = cost;
+            } else if (cost < referenceCost[road]) referenceCost[road] = cost;
         }
+        if (degraded) routeVersion = newVersion;
+    }
 
-        public Road[] getPath() {
-            int count = 0;
-            for (Node curr = this; curr != null; curr = curr.previous) count++;
-            Road[] path = new Road[count];
-            for (Node curr = this; curr != null; curr = curr.previous) path[--count] = curr.road;
-            return path;
-        }
+    /**
+     * @return the indices of all roads from the given road until the destination. If the destination can not be
+     * reached, the route ends early.
+     */
+    public int[] getRoute(int road, int destination) {
+        return router.getRoute(road, destination);
     }
 
-    private static class NavigationPair {
-        private final Crossing crossing;
-        private final Road destination;
+    /**
+     * Incremented whenever a road is closed or gets much slower, so participants only have to check their
+     * routes if this changed since they planned them.
+     */
+    public int getRouteVersion() {
+        return routeVersion;
+    }
 
-        public NavigationPair(Crossing crossing, Road destination) {
-            this.crossing = crossing;
-            this.destination = destination;
+    /**
+     * @return false if a road of the route starting at index {@code from} was closed or got much slower
+     * after the given route version
+     */
+    public boolean isRouteValid(int[] route, int from, int version) {
+        for (int i = from; i < route.length; i++) {
+            if (degradedAt[route[i]] > version) return false;
         }
+        return true;
+    }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            NavigationPair that = (NavigationPair) o;
-            return Objects.equals(crossing, that.crossing) && Objects.equals(destination, that.destination);
-        }
+    private static class RoadState {
+        private final Road road;
+        private final boolean closed;
+        private final double estimatedSpeed;
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(crossing, destination);
+        RoadState(Road road, boolean closed, double estimatedSpeed) {
+            this.road = road;
+            this.closed = closed;
+            this.estimatedSpeed = estimatedSpeed;
         }
     }
 }
@@ -0,0 +1,88 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of int nodes with decrease key, keyed by a double.
+ * Avoids allocating a queue entry per relaxed edge.
+ */
+final class NodeHeap {
+    private final int[] heap;
+    private final double[] key;
+    private final int[] position;
+    private int size = 0;
+
+    NodeHeap(int capacity) {
+        heap = new int[capacity];
+        key = new double[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    double peekKey() {
+        return key[heap[0]];
+    }
+
+    /**
+     * Inserts the node or lowers its key. Keys that are not lower than the current one are ignored.
+     */
+    void offer(int node, double value) {
+        int pos = position[node];
+        if (pos < 0) {
+            pos = size++;
+            heap[pos] = node;
+            position[node] = pos;
+        } else if (value >= key[node]) return;
+        key[node] = value;
+        siftUp(pos);
+    }
+
+    int poll() {
+        int node = heap[0];
+        position[node] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return node;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) position[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int node = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (key[heap[parent]] <= key[node]) break;
+            heap[pos] = heap[parent];
+            position[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = node;
+        position[node] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int node = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) break;
+            if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) child++;
+            if (key[heap[child]] >= key[node]) break;
+            heap[pos] = heap[child];
+            position[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = node;
+        position[node] = pos;
+    }
+}
@@ -0,0 +1,238 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+import at.jku.softengws20.group1.shared.Config;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static at.jku.softengws20.group1.participants.roadNetwork.RoadGraph.NONE;
+
+/**
+ * Runs one backward search per destination road, which yields the next road for every crossing at once.
+ * All cars heading to the same destination share this next hop table. The tables of the least recently
+ * used destinations are evicted once {@link Config#PARTICIPANTS_MAX_ROUTE_TREES} is exceeded.
+ * When roads change, the cached trees are repaired instead of searched again.
+ */
+class ReverseTreeRouter implements Router {
+    private final RoadGraph graph;
+    private final LinkedHashMap<Integer, RouteTree> trees = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, RouteTree> eldest) {
+            return size() > Config.PARTICIPANTS_MAX_ROUTE_TREES;
+        }
+    };
+    private int generation = 0;
+
+    ReverseTreeRouter(RoadGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public int getNext(int current, int destination) {
+        RouteTree tree;
+        int startGeneration;
+        synchronized (trees) {
+            tree = trees.get(destination);
+            startGeneration = generation;
+        }
+        if (tree == null) {
+            tree = new RouteTree(destination);
+            synchronized (trees) {
+                if (generation == startGeneration) trees.putIfAbsent(destination, tree);
+            }
+        }
+        return tree.next[current];
+    }
+
+    @Override
+    public int[] getRoute(int road, int destination) {
+        return Router.followNextHops(this, graph, road, destination);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (trees) {
+            generation++;
+            trees.clear();
+        }
+    }
+
+    @Override
+    public void roadsChanged(int[] roads) {
+        synchronized (trees) {
+            generation++;
+            NodeHeap queue = new NodeHeap(graph.getCrossingCount());
+            for (RouteTree tree : trees.values()) tree.repair(roads, queue);
+        }
+    }
+
+    /**
+     * Next hop table for one destination road.
+     */
+    private class RouteTree {
+        private final int destination;
+        /**
+         * cost from a crossing until the end of the destination road
+         */
+        private final double[] cost;
+        /**
+         * road the cost of a crossing is based on
+         */
+        private final int[] parent;
+        /**
+         * road to take at a crossing
+         */
+        private final int[] next;
+
+        RouteTree(int destination) {
+            this.destination = destination;
+            int crossingCount = graph.getCrossingCount();
+            cost = new double[crossingCount];
+            parent = new int[crossingCount];
+            next = new int[crossingCount];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            Arrays.fill(parent, NONE);
+            Arrays.fill(next, NONE);
+
+            NodeHeap queue = new NodeHeap(crossingCount);
+            if (!graph.isClosed(destination)) {
+                int start = graph.getStart(destination);
+                cost[start] = Router.cost(graph, destination);
+                parent[start] = destination;
+                queue.offer(start, cost[start]);
+            }
+            search(queue, null);
+            for (int crossing = 0; crossing < crossingCount; crossing++) updateNext(crossing);
+        }
+
+        /**
+         * Dijkstra on the reversed roads, starting with the crossings in the queue.
+         * Lowers the cost of every crossing that can be improved.
+         */
+        private void search(NodeHeap queue, IntList changed) {
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                if (changed != null) changed.add(node);
+                for (int i = graph.getInStart(node); i < graph.getInStart(node + 1); i++) {
+                    int road = graph.getInRoad(i);
+                    if (graph.isClosed(road) || road == destination) continue;
+                    int start = graph.getStart(road);
+                    double candidate = cost[node] + Router.cost(graph, road);
+                    if (candidate < cost[start]) {
+                        cost[start] = candidate;
+                        parent[start] = road;
+                        queue.offer(start, candidate);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The first road is free, so only the cost after it decides where to go; ties go to the faster road.
+         */
+        private void updateNext(int crossing) {
+            double best = Double.POSITIVE_INFINITY;
+            double bestOwnCost = Double.POSITIVE_INFINITY;
+            int index = NONE;
+            for (int i = graph.getOutStart(crossing); i < graph.getOutStart(crossing + 1); i++) {
+                int road = graph.getOutRoad(i);
+                if (graph.isClosed(road)) continue;
+                double remaining = road == destination ? 0 : cost[graph.getEnd(road)];
+                if (remaining == Double.POSITIVE_INFINITY) continue;
+                double ownCost = Router.cost(graph, road);
+                if (remaining < best || (remaining == best && ownCost < bestOwnCost)) {
+                    best = remaining;
+                    bestOwnCost = ownCost;
+                    index = road;
+                }
+            }
+            next[crossing] = index;
+        }
+
+        private double costVia(int road) {
+            if (graph.isClosed(road)) return Double.POSITIVE_INFINITY;
+            if (road == destination) return Router.cost(graph, road);
+            return Router.cost(graph, road) + cost[graph.getEnd(road)];
+        }
+
+        /**
+         * Dynamic shortest path update: crossings whose route uses a changed road are searched again,
+         * crossings that can use a changed road to get cheaper are lowered, everything else is kept.
+         */
+        void repair(int[] roads, NodeHeap queue) {
+            //crossings routing over a changed road lose their cost, together with all crossings routing over them
+            IntList invalid = new IntList();
+            for (int road : roads) {
+                int start = graph.getStart(road);
+                if (parent[start] == road) {
+                    parent[start] = NONE;
+                    cost[start] = Double.POSITIVE_INFINITY;
+                    invalid.add(start);
+                }
+            }
+            for (int k = 0; k < invalid.size(); k++) {
+                int crossing = invalid.get(k);
+                for (int i = graph.getInStart(crossing); i < graph.getInStart(crossing + 1); i++) {
+                    int road = graph.getInRoad(i);
+                    int start = graph.getStart(road);
+                    if (parent[start] == road) {
+                        parent[start] = NONE;
+                        cost[start] = Double.POSITIVE_INFINITY;
+                        invalid.add(start);
+                    }
+                }
+            }
+
+            //seed the search with the best remaining option of every invalidated crossing and every changed road
+            for (int k = 0; k < invalid.size(); k++) {
+                int crossing = invalid.get(k);
+                for (int i = graph.getOutStart(crossing); i < graph.getOutStart(crossing + 1); i++)
+                    offer(graph.getOutRoad(i), queue);
+            }
+            for (int road : roads) offer(road, queue);
+
+            IntList changed = invalid;
+            search(queue, changed);
+            for (int road : roads) updateNext(graph.getStart(road));
+            for (int k = 0; k < changed.size(); k++) {
+                int crossing = changed.get(k);
+                updateNext(crossing);
+                for (int i = graph.getInStart(crossing); i < graph.getInStart(crossing + 1); i++)
+                    updateNext(graph.getStart(graph.getInRoad(i)));
+            }
+        }
+
+        private void offer(int road, NodeHeap queue) {
+            int start = graph.getStart(road);
+            double candidate = costVia(road);
+            if (candidate < cost[start]) {
+                cost[start] = candidate;
+                parent[start] = road;
+                queue.offer(start, candidate);
+            }
+        }
+    }
+
+    /**
+     * Growable list of primitive ints.
+     */
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
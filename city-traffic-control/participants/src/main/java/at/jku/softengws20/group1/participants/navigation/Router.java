@@ -0,0 +1,58 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+import java.util.Arrays;
+
+/**
+ * Routing strategy used by {@link Navigation}. Works on the dense indices of {@link RoadGraph}.
+ * Implementations have to be thread safe.
+ */
+interface Router {
+    /**
+     * @return the index of the road to take at the given crossing to reach the destination road,
+     * or {@link RoadGraph#NONE} if it is not reachable
+     */
+    int getNext(int current, int destination);
+
+    /**
+     * @return the indices of all roads from the given road until the destination. If the destination can not be
+     * reached, the route ends early.
+     */
+    int[] getRoute(int road, int destination);
+
+    /**
+     * Drops all cached routes because the state of the road network changed.
+     */
+    void clear();
+
+    /**
+     * Updates the cached routes after the given roads were closed, opened or changed their estimated speed.
+     * Only called between simulation ticks, never concurrently to {@link #getNext(int, int)}.
+     */
+    void roadsChanged(int[] roads);
+
+    /**
+     * Builds a route by following {@link #getNext(int, int)} from crossing to crossing.
+     */
+    static int[] followNextHops(Router router, RoadGraph graph, int road, int destination) {
+        int[] route = new int[16];
+        int length = 0;
+        route[length++] = road;
+        //a route can not contain more roads than the network, anything longer is a navigation loop
+        while (road != destination && length <= graph.getRoadCount()) {
+            road = router.getNext(graph.getEnd(road), destination);
+            if (road == RoadGraph.NONE) break;
+            if (length == route.length) route = Arrays.copyOf(route, length * 2);
+            route[length++] = road;
+        }
+        return Arrays.copyOf(route, length);
+    }
+
+    /**
+     * Travel cost of a road, used by all routers.
+     */
+    static double cost(RoadGraph graph, int road) {
+        return graph.getLength(road) / graph.getEstimatedSpeed(road) + 1;
+    }
+}
@@ -0,0 +1,54 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.shared.Config;
+
+public enum RoutingMode {
+    /**
+     * One forward search per (crossing, destination) pair, caching the first road.
+     */
+    DIJKSTRA {
+        @Override
+        Router create(RoadNetwork roadNetwork) {
+            return new DijkstraRouter(roadNetwork.graph);
+        }
+    },
+    /**
+     * One backward search per destination, caching the next road for every crossing.
+     */
+    REVERSE_TREE {
+        @Override
+        Router create(RoadNetwork roadNetwork) {
+            return new ReverseTreeRouter(roadNetwork.graph);
+        }
+    },
+    /**
+     * Bidirectional upward searches in a customizable contraction hierarchy, built once per road network.
+     */
+    CONTRACTION_HIERARCHIES {
+        @Override
+        Router create(RoadNetwork roadNetwork) {
+            return new ContractionHierarchyRouter(roadNetwork.graph);
+        }
+    },
+    /**
+     * A* search per (crossing, destination) pair, guided by the straight line distance.
+     */
+    ASTAR {
+        @Override
+        Router create(RoadNetwork roadNetwork) {
+            return new AStarRouter(roadNetwork.graph, new EuclideanBound(roadNetwork.graph));
+        }
+    },
+    /**
+     * A* search per (crossing, destination) pair, guided by precomputed costs to and from landmark crossings.
+     */
+    ALT {
+        @Override
+        Router create(RoadNetwork roadNetwork) {
+            return new AStarRouter(roadNetwork.graph, new LandmarkBound(roadNetwork.graph, Config.PARTICIPANTS_ALT_LANDMARKS));
+        }
+    };
+
+    abstract Router create(RoadNetwork roadNetwork);
+}
@@ -0,0 +1,241 @@
+package at.jku.softengws20.group1.participants.restservice;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.participants.simulation.Simulation;
+import at.jku.softengws20.group1.shared.Config;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the participants to the GUI as Server-Sent Events, one event per tick.
+ * <p>
+ * The data of an event is the base64 encoding of one 9 byte record per car: the id (int), x and y (unsigned
+ * short, scaled from the minimum to the maximum coordinate of the road network) and a state byte
+ * ({@link #MOVING}, {@link #CALLBACK}). The map is divided into a grid of
+ * {@link Config#PARTICIPANTS_LIVE_FEED_GRID} x {@link Config#PARTICIPANTS_LIVE_FEED_GRID} cells and every cell is
+ * encoded once per tick. A subscriber only gets the cells overlapping its bounding box; since the records are a
+ * multiple of 3 bytes, the base64 strings of the cells can simply be concatenated.
+ * <p>
+ * Frames are encoded at the end of a tick and sent by a separate thread, so slow clients do not hold up the
+ * simulation. If the sender falls behind, only the newest frame is sent.
+ */
+public class LiveFeed {
+    public static final int RECORD_SIZE = 9;
+    public static final int MOVING = 1;
+    public static final int CALLBACK = 2;
+    private static final int GRID = Config.PARTICIPANTS_LIVE_FEED_GRID;
+
+    private final Simulation simulation;
+    private final Navigation navigation;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private Frame pending;
+    private long tick = 0;
+    private final AtomicLong skipped = new AtomicLong();
+
+    //encoding buffers, reused between ticks
+    private int count;
+    private int[] ids = new int[1024];
+    private int[] xs = new int[1024];
+    private int[] ys = new int[1024];
+    private byte[] states = new byte[1024];
+    private int[] cells = new int[1024];
+
+    public LiveFeed(Simulation simulation, Navigation navigation) {
+        this.simulation = simulation;
+        this.navigation = navigation;
+        simulation.addTickListener(this::encode);
+        Thread thread = new Thread(this::sendLoop, "live-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Subscribes to the cars within a bounding box in road network coordinates. Missing bounds default to the
+     * bounds of the map.
+     */
+    public SseEmitter subscribe(Double minX, Double minY, Double maxX, Double maxY) {
+        SseEmitter emitter = new SseEmitter(0L);
+        RoadNetwork roadNetwork = navigation.getRoadNetwork();
+        Subscriber subscriber = roadNetwork == null ? new Subscriber(emitter, 0, 0, GRID - 1, GRID - 1) :
+                new Subscriber(emitter,
+                        cell(minX, roadNetwork.getMinX(), roadNetwork.getMaxX(), 0),
+                        cell(minY, roadNetwork.getMinY(), roadNetwork.getMaxY(), 0),
+                        cell(maxX, roadNetwork.getMinX(), roadNetwork.getMaxX(), GRID - 1),
+                        cell(maxY, roadNetwork.getMinY(), roadNetwork.getMaxY(), GRID - 1));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    private static int cell(Double value, double min, double max, int fallback) {
+        if (value == null) return fallback;
+        return Math.max(0, Math.min(GRID - 1, (int) ((value - min) / span(min, max) * GRID)));
+    }
+
+    private static double span(double min, double max) {
+        return max > min ? max - min : 1;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * frames that were replaced by a newer one before they were sent
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Called at the end of a tick while the simulation is locked.
+     */
+    private void encode() {
+        tick++;
+        if (subscribers.isEmpty()) return;
+        RoadNetwork roadNetwork = navigation.getRoadNetwork();
+        RoadGraph graph = roadNetwork.graph;
+        double minX = roadNetwork.getMinX();
+        double minY = roadNetwork.getMinY();
+        double spanX = span(minX, roadNetwork.getMaxX());
+        double spanY = span(minY, roadNetwork.getMaxY());
+
+        count = 0;
+        simulation.forEachParticipant((id, road, roadPosition, velocity, acceleration, hasCallback) -> {
+            if (count == ids.length) grow();
+            int start = graph.getStart(road);
+            int end = graph.getEnd(road);
+            double dx = graph.getX(end) - graph.getX(start);
+            double dy = graph.getY(end) - graph.getY(start);
+            double t = roadPosition / graph.getLength(road);
+            //shift to the right of the driving direction, so both directions of a street can be told apart
+            double length = Math.sqrt(dx * dx + dy * dy);
+            double offset = length > 0 ? 0.1 / 90 / length : 0;
+            double x = (graph.getX(start) + dx * t - minX) / spanX - dy * offset;
+            double y = (graph.getY(start) + dy * t - minY) / spanY + dx * offset;
+            x = Math.max(0, Math.min(1, x));
+            y = Math.max(0, Math.min(1, y));
+            ids[count] = id;
+            xs[count] = (int) Math.round(x * 0xFFFF);
+            ys[count] = (int) Math.round(y * 0xFFFF);
+            states[count] = (byte) ((hasCallback ? CALLBACK : 0) | (acceleration >= -0.1 && velocity > 0 ? MOVING : 0));
+            cells[count] = Math.min(GRID - 1, (int) (y * GRID)) * GRID + Math.min(GRID - 1, (int) (x * GRID));
+            count++;
+        });
+
+        int[] cellSize = new int[GRID * GRID];
+        for (int i = 0; i < count; i++) cellSize[cells[i]]++;
+        byte[][] data = new byte[GRID * GRID][];
+        for (int cell = 0; cell < data.length; cell++) data[cell] = new byte[cellSize[cell] * RECORD_SIZE];
+        int[] fill = new int[GRID * GRID];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = data[cells[i]];
+            int p = fill[cells[i]];
+            bytes[p] = (byte) (ids[i] >>> 24);
+            bytes[p + 1] = (byte) (ids[i] >>> 16);
+            bytes[p + 2] = (byte) (ids[i] >>> 8);
+            bytes[p + 3] = (byte) ids[i];
+            bytes[p + 4] = (byte) (xs[i] >>> 8);
+            bytes[p + 5] = (byte) xs[i];
+            bytes[p + 6] = (byte) (ys[i] >>> 8);
+            bytes[p + 7] = (byte) ys[i];
+            bytes[p + 8] = states[i];
+            fill[cells[i]] = p + RECORD_SIZE;
+        }
+        String[] chunks = new String[GRID * GRID];
+        Base64.Encoder encoder = Base64.getEncoder();
+        for (int cell = 0; cell < chunks.length; cell++) chunks[cell] = encoder.encodeToString(data[cell]);
+
+        synchronized (lock) {
+            if (pending != null) skipped.incrementAndGet();
+            pending = new Frame(tick, chunks);
+            lock.notify();
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        states = Arrays.copyOf(states, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+    }
+
+    private void sendLoop() {
+        while (true) {
+            Frame frame;
+            synchronized (lock) {
+                while (pending == null) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                frame = pending;
+                pending = null;
+            }
+            //subscribers with the same bounding box share the data
+            HashMap<Integer, String> byArea = new HashMap<>();
+            for (Subscriber subscriber : subscribers) {
+                String data = byArea.computeIfAbsent(subscriber.area(), area -> frame.data(subscriber));
+                try {
+                    subscriber.emitter.send(SseEmitter.event().id(Long.toString(frame.tick)).name("frame").data(data));
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }
+    }
+
+    private static class Frame {
+        private final long tick;
+        private final String[] chunks;
+
+        Frame(long tick, String[] chunks) {
+            this.tick = tick;
+            this.chunks = chunks;
+        }
+
+        String data(Subscriber subscriber) {
+            StringBuilder data = new StringBuilder();
+            for (int y = subscriber.minCellY; y <= subscriber.maxCellY; y++) {
+                for (int x = subscriber.minCellX; x <= subscriber.maxCellX; x++) data.append(chunks[y * GRID + x]);
+            }
+            return data.toString();
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final int minCellX;
+        private final int minCellY;
+        private final int maxCellX;
+        private final int maxCellY;
+
+        Subscriber(SseEmitter emitter, int minCellX, int minCellY, int maxCellX, int maxCellY) {
+            this.emitter = emitter;
+            this.minCellX = minCellX;
+            this.minCellY = minCellY;
+            this.maxCellX = maxCellX;
+            this.maxCellY = maxCellY;
+        }
+
+        int area() {
+            return ((minCellX * GRID + minCellY) * GRID + maxCellX) * GRID + maxCellY;
+        }
+    }
+}
@@ -2,40 +2,70 @@ package at.jku.softengws20.group1.participants.restservice;
 
 import at.jku.softengws20.group1.participants.navigation.Navigation;
 import at.jku.softengws20.group1.participants.roadNetwork.*;
+import at.jku.softengws20.group1.participants.simulation.ArrivalDispatcher;
+import at.jku.softengws20.group1.participants.simulation.DemandModel;
+import at.jku.softengws20.group1.participants.simulation.DensityTiles;
+import at.jku.softengws20.group1.participants.simulation.DetectionPublisher;
 import at.jku.softengws20.group1.participants.simulation.Participant;
 import at.jku.softengws20.group1.participants.simulation.Simulation;
+import at.jku.softengws20.group1.participants.simulation.SimulationSnapshot;
+import at.jku.softengws20.group1.participants.simulation.TrajectoryRecorder;
+import at.jku.softengws20.group1.participants.simulation.TrajectoryStore;
 import at.jku.softengws20.group1.shared.Config;
-import at.jku.softengws20.group1.shared.controlsystem.RoadSegment;
 import at.jku.softengws20.group1.shared.impl.model.CarPath;
 import at.jku.softengws20.group1.shared.impl.model.RoadSegmentStatus;
+import at.jku.softengws20.group1.shared.impl.model.SendCarsResult;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLightChange;
 import at.jku.softengws20.group1.shared.participants.ParticipantsInterface;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 
 @RestController
 @RequestMapping(ParticipantsInterface.URL)
-public class ParticipantsController implements ParticipantsInterface, ApplicationListener<ContextRefreshedEvent> {
+public class ParticipantsController implements ParticipantsInterface, ApplicationListener<ContextRefreshedEvent>, DisposableBean {
     private final ParticipantsControlSystemService controlSystemService = new ParticipantsControlSystemService();
     private final Navigation navigation;
     private final HashMap<String, Crossing> crossings = new HashMap<>();
     private final HashMap<String, Road> roads = new HashMap<>();
+    private final DetectionPublisher publisher;
+    private final LiveFeed liveFeed;
+    private final DensityTiles densityTiles;
+    private TrajectoryRecorder recorder;
+    private final ObjectMapper mapper = new ObjectMapper();
     private Simulation simulation;
     private RoadNetwork roadNetwork;
     private Random random = new Random();
 
     public ParticipantsController() {
         navigation = new Navigation();
-        simulation = new Simulation(navigation);
+        publisher = new DetectionPublisher(new ParticipantsDetectionSystemService()::setCarEvents, navigation);
+        simulation = new Simulation(navigation, publisher);
+        liveFeed = new LiveFeed(simulation, navigation);
+        densityTiles = new DensityTiles(simulation, navigation);
     }
 
     @Override
@@ -46,25 +76,183 @@ public class ParticipantsController implements ParticipantsInterface, Applicatio
                 new Position(roads.get(request.getDestinationRoadSegmentId()), request.getDestinationRoadPosition()), navigation, request.getCallbackUri()));
     }
 
+    @Override
+    public SendCarsResult sendCars(CarPath[] requests) throws Exception {
+        if (roads.isEmpty()) throw new Exception("called sendCars too early");
+        TripBatch batch = new TripBatch();
+        for (CarPath request : requests) batch.add(request);
+        return batch.submit();
+    }
+
+    /**
+     * Reads the JSON array of car paths one by one, so large batches are never held as one array.
+     */
+    @PostMapping(ParticipantsInterface.SEND_CARS)
+    public SendCarsResult sendCars(InputStream body) throws Exception {
+        if (roads.isEmpty()) throw new Exception("called sendCars too early");
+        TripBatch batch = new TripBatch();
+        try (JsonParser parser = mapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) throw new Exception("expected a JSON array of car paths");
+            while (parser.nextToken() == JsonToken.START_OBJECT) batch.add(parser.readValueAs(CarPath.class));
+            if (parser.currentToken() != JsonToken.END_ARRAY) throw new Exception("expected a JSON array of car paths");
+        }
+        return batch.submit();
+    }
+
+    /**
+     * Validates car paths and adds the valid ones to the simulation at once.
+     */
+    private class TripBatch {
+        private static final int MAX_ERRORS = 10;
+        private final ArrayList<Participant> participants = new ArrayList<>();
+        private final ArrayList<String> errors = new ArrayList<>();
+        private int received = 0;
+
+        void add(CarPath request) {
+            int index = received++;
+            Road start = roads.get(request.getStartRoadSegmentId());
+            Road destination = roads.get(request.getDestinationRoadSegmentId());
+            if (start == null) reject(index, "unknown start road " + request.getStartRoadSegmentId());
+            else if (destination == null) reject(index, "unknown destination road " + request.getDestinationRoadSegmentId());
+            else if (!isOnRoad(start, request.getStartRoadPosition())) reject(index, "start position off the road");
+            else if (!isOnRoad(destination, request.getDestinationRoadPosition())) reject(index, "destination position off the road");
+            else participants.add(new Participant(new Position(start, request.getStartRoadPosition()),
+                        new Position(destination, request.getDestinationRoadPosition()), navigation, request.getCallbackUri()));
+        }
+
+        private boolean isOnRoad(Road road, double position) {
+            return position >= 0 && position <= road.getLength();
+        }
+
+        private void reject(int index, String reason) {
+            if (errors.size() < MAX_ERRORS) errors.add("car " + index + ": " + reason);
+        }
+
+        SendCarsResult submit() {
+            int accepted = participants.size();
+            if (!simulation.addParticipantsAtNextTick(participants)) {
+                accepted = 0;
+                if (errors.size() < MAX_ERRORS) errors.add("too many cars waiting for the next tick");
+            }
+            return new SendCarsResult(received, accepted, received - accepted, errors.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Counters of the arrival callbacks, e.g. the queue depth and the retries.
+     */
+    @GetMapping("arrivalMetrics")
+    public ArrivalDispatcher.Metrics arrivalMetrics() {
+        return ArrivalDispatcher.getInstance().getMetrics();
+    }
+
+    /**
+     * Counters of the car events sent to the detection system, e.g. the skipped ticks and the lag.
+     */
+    @GetMapping("publisherMetrics")
+    public DetectionPublisher.Metrics publisherMetrics() {
+        return publisher.getMetrics();
+    }
+
+    /**
+     * Server-Sent Events stream of the participants within the bounding box, see {@link LiveFeed}.
+     */
+    @GetMapping("liveFeed")
+    public SseEmitter liveFeed(@RequestParam(required = false) Double minX, @RequestParam(required = false) Double minY,
+                               @RequestParam(required = false) Double maxX, @RequestParam(required = false) Double maxY) {
+        return liveFeed.subscribe(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Number of cars and their average speed per tile of the given zoom level, see {@link DensityTiles}.
+     * Defaults to the coarsest level with more than one tile.
+     */
+    @GetMapping("densityTiles")
+    public DensityTiles.Level densityTiles(@RequestParam(required = false) Integer zoom) {
+        return densityTiles.getLevel(zoom == null ? 1 : zoom);
+    }
+
+    /**
+     * Saves the simulation to {@link Config#PARTICIPANTS_SNAPSHOT_FILE}, see {@link SimulationSnapshot}.
+     */
+    @PostMapping("snapshot")
+    public SimulationSnapshot.Summary snapshot() throws Exception {
+        if (Config.PARTICIPANTS_SNAPSHOT_FILE.isEmpty()) throw new Exception("no snapshot file configured");
+        if (roadNetwork == null) throw new Exception("called snapshot too early");
+        return simulation.saveSnapshot(Path.of(Config.PARTICIPANTS_SNAPSHOT_FILE));
+    }
+
+    /**
+     * Counters of the trajectory recorder, null if recording is off.
+     */
+    @GetMapping("recorderMetrics")
+    public TrajectoryRecorder.Metrics recorderMetrics() {
+        return recorder == null ? null : recorder.getMetrics();
+    }
+
+    /**
+     * Recorded samples of all cars on a road between two ticks of this run, see {@link TrajectoryStore}.
+     */
+    @GetMapping("trajectories/road/{roadId}")
+    public List<TrajectoryStore.Sample> carsOnRoad(@PathVariable String roadId, @RequestParam long from, @RequestParam long to) throws Exception {
+        if (recorder == null) throw new Exception("trajectory recording is off");
+        Road road = roads.get(roadId);
+        if (road == null) throw new Exception("unknown road " + roadId);
+        return new TrajectoryStore(recorder.getDirectory()).carsOnRoad(road.getIndex(), from, to);
+    }
+
+    /**
+     * Recorded samples of one car between two ticks of this run, see {@link TrajectoryStore}.
+     */
+    @GetMapping("trajectories/car/{carId}")
+    public List<TrajectoryStore.Sample> trajectory(@PathVariable int carId, @RequestParam long from, @RequestParam long to) throws Exception {
+        if (recorder == null) throw new Exception("trajectory recording is off");
+        return new TrajectoryStore(recorder.getDirectory()).trajectory(carId, from, to);
+    }
+
     @RequestMapping("participantPositions")
     public String participantPositions() {
         if (roadNetwork == null) return "";
-        double minX = roadNetwork.getMinX();
-        double minY = roadNetwork.getMinY();
-        double maxX = roadNetwork.getMaxX();
-        double maxY = roadNetwork.getMaxY();
+        RoadGraph graph = roadNetwork.graph;
         StringBuilder res = new StringBuilder("");
         for (Participant participant : simulation.getParticipants()) {
-            Coordinate c = participant.getPosition().getCoordinate();
-            Coordinate screenOffset = participant.getPosition().getRoad().getScreenOffset();
-            res.append("<circle cx=").append((c.getX() - minX) / (maxX - minX) * 90 + 5 + screenOffset.getX())
-                    .append("% cy=").append((c.getY() - minY) / (maxY - minY) * 90 + 5 + screenOffset.getY()).append("% r=")
+            int road = participant.getPosition().getRoad().getIndex();
+            double t = participant.getPosition().getRoadPosition() / graph.getLength(road);
+            int start = graph.getStart(road);
+            int end = graph.getEnd(road);
+            double x = graph.getX(start) + (graph.getX(end) - graph.getX(start)) * t;
+            double y = graph.getY(start) + (graph.getY(end) - graph.getY(start)) * t;
+            res.append("<circle cx=").append(screenX(x) + screenOffsetX(graph, road))
+                    .append("% cy=").append(screenY(y) + screenOffsetY(graph, road)).append("% r=")
                     .append(getCarDotSize(participant)).append(" fill='")
                     .append(getCarColor(participant)).append("'/>");
         }
         return res.toString();
     }
 
+    private double screenX(double x) {
+        return (x - roadNetwork.getMinX()) / (roadNetwork.getMaxX() - roadNetwork.getMinX()) * 90 + 5;
+    }
+
+    private double screenY(double y) {
+        return (y - roadNetwork.getMinY()) / (roadNetwork.getMaxY() - roadNetwork.getMinY()) * 90 + 5;
+    }
+
+    /**
+     * Same as {@link Road#getScreenOffset()}, without allocating a coordinate.
+     */
+    private static double screenOffsetX(RoadGraph graph, int road) {
+        double x = graph.getX(graph.getStart(road)) - graph.getX(graph.getEnd(road));
+        double y = graph.getY(graph.getStart(road)) - graph.getY(graph.getEnd(road));
+        return y / Math.sqrt(x * x + y * y) * 0.1;
+    }
+
+    private static double screenOffsetY(RoadGraph graph, int road) {
+        double x = graph.getX(graph.getStart(road)) - graph.getX(graph.getEnd(road));
+        double y = graph.getY(graph.getStart(road)) - graph.getY(graph.getEnd(road));
+        return -x / Math.sqrt(x * x + y * y) * 0.1;
+    }
+
     public int getCarDotSize(Participant participant) {
         if (participant.hasCallback()) return 5;
         else return 2;
@@ -78,42 +266,43 @@ public class ParticipantsController implements ParticipantsInterface, Applicatio
 
     @RequestMapping("gui")
     public String getGui() {
-        double minX = roadNetwork.getMinX();
-        double minY = roadNetwork.getMinY();
-        double maxX = roadNetwork.getMaxX();
-        double maxY = roadNetwork.getMaxY();
+        RoadGraph graph = roadNetwork.graph;
         StringBuilder gui = new StringBuilder("<svg width=100% height=100% style='position:absolute'>\n");
-        for (Road road : roadNetwork.roads) {
-            double x1 = (road.getStart().getPosition().getX() - minX) / (maxX - minX) * 90 + 5;
-            double y1 = (road.getStart().getPosition().getY() - minY) / (maxY - minY) * 90 + 5;
-            double x2 = (road.getEnd().getPosition().getX() - minX) / (maxX - minX) * 90 + 5;
-            double y2 = (road.getEnd().getPosition().getY() - minY) / (maxY - minY) * 90 + 5;
-            Coordinate screenOffset = road.getScreenOffset();
-            gui.append("<line x1=").append(x1 + screenOffset.getX()).append("% y1=").append(y1 + screenOffset.getY())
-                    .append("% x2=").append(x2 + screenOffset.getX()).append("% y2=").append(y2 + screenOffset.getY())
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            double x1 = screenX(graph.getX(graph.getStart(road)));
+            double y1 = screenY(graph.getY(graph.getStart(road)));
+            double x2 = screenX(graph.getX(graph.getEnd(road)));
+            double y2 = screenY(graph.getY(graph.getEnd(road)));
+            double offsetX = screenOffsetX(graph, road);
+            double offsetY = screenOffsetY(graph, road);
+            gui.append("<line x1=").append(x1 + offsetX).append("% y1=").append(y1 + offsetY)
+                    .append("% x2=").append(x2 + offsetX).append("% y2=").append(y2 + offsetY)
                     .append("% style='stroke:rgb(0,0,0);stroke-width:1'/>");
-            //gui.append("<text x=").append((x1 + x2) / 2 + 1).append("% y=").append((y1 + y2) / 2 - 1).append("% class='small'>").append(road.getId()).append("</text>");
+            //gui.append("<text x=").append((x1 + x2) / 2 + 1).append("% y=").append((y1 + y2) / 2 - 1).append("% class='small'>").append(roadNetwork.roads[road].getId()).append("</text>");
         }
-        for (Crossing crossing : roadNetwork.crossings) {
-            double x = (crossing.getPosition().getX() - minX) / (maxX - minX) * 90 + 5;
-            double y = (crossing.getPosition().getY() - minY) / (maxY - minY) * 90 + 5;
-            //gui.append("<text x=").append(x).append("% y=").append(y).append("% class='small'>").append(crossing.getId()).append("</text>");
+        for (int crossing = 0; crossing < graph.getCrossingCount(); crossing++) {
+            double x = screenX(graph.getX(crossing));
+            double y = screenY(graph.getY(crossing));
+            //gui.append("<text x=").append(x).append("% y=").append(y).append("% class='small'>").append(roadNetwork.crossings[crossing].getId()).append("</text>");
             gui.append("<circle cx=").append(x).append("% cy=").append(y).append("% r=2").append(" fill='black'/>");
         }
         gui.append("</svg>");
         gui.append("<svg id='participants' width=100% height=100% style='position:absolute'></svg>");
         gui.append("<script type='text/javascript'>" +
-                "function refresh() {\n" +
-                "  var xhttp = new XMLHttpRequest();\n" +
-                "  xhttp.onreadystatechange = function() {\n" +
-                "    if (this.readyState == 4 && this.status == 200) {\n" +
-                "     document.getElementById(\"participants\").innerHTML = this.responseText;\n" +
-                "    }\n" +
-                "  };\n" +
-                "  xhttp.open(\"GET\", \"/participants/participantPositions\", true);\n" +
-                "  xhttp.send();\n" +
-                "}\n" +
-                "setInterval(refresh, 100);" +
+                "var source = new EventSource(\"/participants/liveFeed\");\n" +
+                "source.addEventListener(\"frame\", function(event) {\n" +
+                "  var data = atob(event.data);\n" +
+                "  var svg = \"\";\n" +
+                "  for (var i = 0; i + " + LiveFeed.RECORD_SIZE + " <= data.length; i += " + LiveFeed.RECORD_SIZE + ") {\n" +
+                "    var x = (data.charCodeAt(i + 4) << 8 | data.charCodeAt(i + 5)) / 65535 * 90 + 5;\n" +
+                "    var y = (data.charCodeAt(i + 6) << 8 | data.charCodeAt(i + 7)) / 65535 * 90 + 5;\n" +
+                "    var state = data.charCodeAt(i + 8);\n" +
+                "    var callback = state & " + LiveFeed.CALLBACK + ";\n" +
+                "    svg += \"<circle cx=\" + x + \"% cy=\" + y + \"% r=\" + (callback ? 5 : 2) + \" fill='\" +\n" +
+                "      (callback ? \"blue\" : state & " + LiveFeed.MOVING + " ? \"green\" : \"red\") + \"'/>\";\n" +
+                "  }\n" +
+                "  document.getElementById(\"participants\").innerHTML = svg;\n" +
+                "});" +
                 "</script>");
         return gui.toString();
     }
@@ -122,15 +311,43 @@ public class ParticipantsController implements ParticipantsInterface, Applicatio
     @PostMapping(ParticipantsInterface.NOTIFY_TRAFFIC_LIGHT_CHANGED)
     public void notifyTrafficLightChanged(@RequestBody TrafficLightChange change) {
         Crossing crossing = crossings.get(change.getCrossingId());
-        crossing.getGreenRoads().clear();
+        ArrayList<Road> greenRoads = new ArrayList<>();
         for (String roadID : change.getGreenForRoads()) {
-            crossing.getGreenRoads().add(roads.get(roadID));
+            greenRoads.add(roads.get(roadID));
         }
+        roadNetwork.setGreenRoads(crossing, greenRoads);
+    }
+
+    /**
+     * Applies all changes together between two ticks. Unknown crossings and roads are ignored.
+     */
+    @Override
+    @PostMapping(ParticipantsInterface.NOTIFY_TRAFFIC_LIGHTS_CHANGED)
+    public void notifyTrafficLightsChanged(@RequestBody TrafficLightChange[] changes) {
+        LinkedHashMap<Crossing, ArrayList<Road>> greenRoads = new LinkedHashMap<>();
+        for (TrafficLightChange change : changes) {
+            Crossing crossing = crossings.get(change.getCrossingId());
+            if (crossing == null) continue;
+            ArrayList<Road> crossingGreenRoads = new ArrayList<>();
+            for (String roadID : change.getGreenForRoads()) {
+                Road road = roads.get(roadID);
+                if (road != null) crossingGreenRoads.add(road);
+            }
+            greenRoads.put(crossing, crossingGreenRoads);
+        }
+        roadNetwork.setGreenRoads(greenRoads);
+    }
+
+    @Override
+    public void destroy() {
+        simulation.shutdown();
     }
 
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
         initNavigation();
+        restoreSnapshot();
+        startRecording();
         Thread t = new Thread(simulation);
         t.setName("simulator");
         t.setPriority(1);
@@ -142,30 +359,70 @@ public class ParticipantsController implements ParticipantsInterface, Applicatio
                 pollRoadNetworkState();
             }
         }, 0, (long) (60 * 1000 / Config.REAL_TIME_FACTOR));
+        if (!Config.PARTICIPANTS_SNAPSHOT_FILE.isEmpty() && Config.PARTICIPANTS_SNAPSHOT_INTERVAL > 0) {
+            long interval = Config.PARTICIPANTS_SNAPSHOT_INTERVAL * 1000L;
+            pollStatusTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    try {
+                        simulation.saveSnapshot(Path.of(Config.PARTICIPANTS_SNAPSHOT_FILE));
+                    } catch (IOException | RuntimeException e) {
+                        System.out.println("saving snapshot failed: " + e);
+                    }
+                }
+            }, interval, interval);
+        }
+    }
+
+    private void startRecording() {
+        if (Config.PARTICIPANTS_RECORDING_DIRECTORY.isEmpty()) return;
+        Path directory = Path.of(Config.PARTICIPANTS_RECORDING_DIRECTORY, Long.toString(System.currentTimeMillis()));
+        try {
+            recorder = new TrajectoryRecorder(simulation, directory);
+        } catch (IOException e) {
+            System.out.println("starting trajectory recording failed: " + e);
+        }
+    }
+
+    private void restoreSnapshot() {
+        if (Config.PARTICIPANTS_SNAPSHOT_FILE.isEmpty()) return;
+        Path file = Path.of(Config.PARTICIPANTS_SNAPSHOT_FILE);
+        if (!Files.exists(file)) return;
+        try {
+            long ts = System.nanoTime();
+            int count = simulation.restoreSnapshot(file);
+            System.out.println("Restored " + count + " participants from " + file + " in " + (System.nanoTime() - ts) / 1000000 + "ms");
+        } catch (IOException e) {
+            System.out.println("restoring snapshot failed, starting empty: " + e);
+        }
     }
 
     public void pollRoadNetworkState() {
         RoadSegmentStatus[] status = controlSystemService.getStatus();
         for (RoadSegmentStatus s : status) {
             Road road = roads.get(s.getRoadSegmentId());
-            road.setClosed(!s.isOpen());
-            road.setEstimatedSpeed(Math.min(road.getSpeedLimit(), Math.max(3, road.getSpeedLimit() * (1 - s.getTrafficLoad()))));
+            double estimatedSpeed = Math.min(road.getSpeedLimit(), Math.max(3, road.getSpeedLimit() * (1 - s.getTrafficLoad())));
+            boolean speedChanged = Math.abs(estimatedSpeed - road.getEstimatedSpeed())
+                    > road.getEstimatedSpeed() * Config.PARTICIPANTS_SPEED_CHANGE_THRESHOLD;
+            if (road.isClosed() == s.isOpen() || speedChanged) {
+                //applied by the simulation thread between two ticks
+                navigation.setRoadState(road, !s.isOpen(), speedChanged ? estimatedSpeed : Double.NaN);
+            }
         }
-        roadNetwork.incVersion();
     }
 
 
     private void initNavigation() {
-        at.jku.softengws20.group1.shared.controlsystem.RoadNetwork roadNetworkSource = controlSystemService.getRoadNetwork();
-        for (at.jku.softengws20.group1.shared.controlsystem.Crossing crossingSource : roadNetworkSource.getCrossings()) {
-            at.jku.softengws20.group1.shared.controlsystem.Position positionNode = crossingSource.getPosition();
-            String id = crossingSource.getId();
-            crossings.put(id, new Crossing(id, new Coordinate(positionNode.getX(), positionNode.getY())));
-        }
-        for (RoadSegment roadSource : roadNetworkSource.getRoadSegments()) {
-            roads.put(roadSource.getId(), new Road(roadSource.getId(), crossings.get(roadSource.getCrossingAId()), crossings.get(roadSource.getCrossingBId()),
-                    roadSource.getLength() * 1000, Math.max(roadSource.getDefaultSpeedLimit(), 30) / 3.6));
+        roadNetwork = RoadNetwork.create(controlSystemService.getRoadNetwork());
+        for (Crossing crossing : roadNetwork.crossings) crossings.put(crossing.getId(), crossing);
+        for (Road road : roadNetwork.roads) roads.put(road.getId(), road);
+        navigation.setRoadNetwork(roadNetwork);
+        if (!Config.PARTICIPANTS_DEMAND_FILE.isEmpty()) {
+            try {
+                simulation.setDemandModel(DemandModel.load(roadNetwork, Path.of(Config.PARTICIPANTS_DEMAND_FILE)));
+            } catch (IOException e) {
+                System.out.println("loading demand model failed, using uniform demand: " + e);
+            }
         }
-        navigation.setRoadNetwork(roadNetwork = new RoadNetwork(crossings.values().toArray(Crossing[]::new), roads.values().toArray(Road[]::new)));
     }
 }
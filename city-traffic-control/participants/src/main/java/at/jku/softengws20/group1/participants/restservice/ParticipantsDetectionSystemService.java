@@ -1,5 +1,6 @@
 package at.jku.softengws20.group1.participants.restservice;
 
+import at.jku.softengws20.group1.shared.impl.model.CarEvent;
 import at.jku.softengws20.group1.shared.impl.model.CarPosition;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLightRule;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLoad;
@@ -7,7 +8,7 @@ import at.jku.softengws20.group1.shared.impl.service.DetectionRestService;
 import org.springframework.stereotype.Service;
 
 @Service
-public class ParticipantsDetectionSystemService extends DetectionRestService<TrafficLoad, TrafficLightRule, CarPosition> {
+public class ParticipantsDetectionSystemService extends DetectionRestService<TrafficLoad, TrafficLightRule, CarPosition, CarEvent> {
     public ParticipantsDetectionSystemService() {
         super(TrafficLoad[].class);
     }
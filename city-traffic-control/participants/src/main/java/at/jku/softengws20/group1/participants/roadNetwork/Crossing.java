@@ -1,33 +1,50 @@
 package at.jku.softengws20.group1.participants.roadNetwork;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Crossing {
     private final String id;
     private final Coordinate position;
     private final ArrayList<Road> roads;
-    private final HashSet<Road> greenRoads;
-
-    public HashSet<Road> getGreenRoads() {
-        return greenRoads;
-    }
+    private final ArrayList<Road> incomingRoads;
+    /**
+     * newest traffic light state, applied to the roads by {@link RoadNetwork#applyTrafficLights()}
+     */
+    private final AtomicReference<TrafficLight> trafficLight = new AtomicReference<>(new TrafficLight(0, new Road[0]));
+    private long appliedTrafficLightVersion = 0;
+    private int index = -1;
 
     public Crossing(String id, Coordinate position) {
         this.id = id;
         this.position = position;
         roads = new ArrayList<>();
-        greenRoads = new HashSet<>();
+        incomingRoads = new ArrayList<>();
     }
 
     protected void addRoad(Road road) {
         roads.add(road);
     }
 
+    protected void addIncomingRoad(Road road) {
+        incomingRoads.add(road);
+    }
+
     public String getId() {
         return id;
     }
 
+    /**
+     * @return dense index of this crossing in {@link RoadNetwork#crossings}
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public Coordinate getPosition() {
         return position;
     }
@@ -35,4 +52,50 @@ public class Crossing {
     public Iterable<Road> getRoads() {
         return roads;
     }
+
+    /**
+     * @return the roads ending at this crossing
+     */
+    public Iterable<Road> getIncomingRoads() {
+        return incomingRoads;
+    }
+
+    /**
+     * Replaces the published traffic light state unless a newer one was published concurrently.
+     */
+    void publishTrafficLight(TrafficLight state) {
+        trafficLight.accumulateAndGet(state, (current, next) -> next.version > current.version ? next : current);
+    }
+
+    /**
+     * Sets the green state of the incoming roads to the newest published state, all roads at once.
+     * Only called at the tick boundary, when no car reads the state.
+     */
+    void applyTrafficLight() {
+        TrafficLight state = trafficLight.get();
+        if (state.version <= appliedTrafficLightVersion) return;
+        for (Road road : incomingRoads) {
+            boolean green = false;
+            for (Road greenRoad : state.greenRoads) green |= greenRoad == road;
+            road.setGreen(green);
+        }
+        appliedTrafficLightVersion = state.version;
+    }
+
+    /**
+     * @return version of the traffic light state the roads are currently set to, 0 if none was applied yet
+     */
+    public long getTrafficLightVersion() {
+        return appliedTrafficLightVersion;
+    }
+
+    static final class TrafficLight {
+        private final long version;
+        private final Road[] greenRoads;
+
+        TrafficLight(long version, Road[] greenRoads) {
+            this.version = version;
+            this.greenRoads = greenRoads;
+        }
+    }
 }
@@ -1,20 +1,16 @@
 package at.jku.softengws20.group1.participants.roadNetwork;
 
-import at.jku.softengws20.group1.participants.simulation.Participant;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-
 public class Road {
     private final String id;
     private final Crossing start;
     private final Crossing end;
     private final double length;
     private final double speedLimit;
-    private final ArrayList<Participant> participants = new ArrayList<>();
-    private final HashMap<Participant, Integer> participantIndizes = new HashMap<>();
     private boolean isClosed;
+    private boolean green;
     private double estimatedSpeed;
+    private int index = -1;
+    private RoadGraph graph;
 
     public Road(String id, Crossing start, Crossing end, double length, double defaultSpeedLimit) {
         this.id = id;
@@ -25,12 +21,28 @@ public class Road {
         speedLimit = defaultSpeedLimit;
         estimatedSpeed = defaultSpeedLimit;
         start.addRoad(this);
+        end.addIncomingRoad(this);
     }
 
     public String getId() {
         return id;
     }
 
+    /**
+     * @return dense index of this road in {@link RoadNetwork#roads}
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    void setGraph(RoadGraph graph) {
+        this.graph = graph;
+    }
+
     public Crossing getStart() {
         return start;
     }
@@ -49,6 +61,19 @@ public class Road {
 
     public void setClosed(boolean closed) {
         isClosed = closed;
+        if (graph != null) graph.setClosed(index, closed);
+    }
+
+    /**
+     * @return true if the traffic light at the end of this road is green, see {@link RoadNetwork#setGreenRoads}
+     */
+    public boolean isGreen() {
+        return green;
+    }
+
+    void setGreen(boolean green) {
+        this.green = green;
+        if (graph != null) graph.setGreen(index, green);
     }
 
     public double getSpeedLimit() {
@@ -61,6 +86,7 @@ public class Road {
 
     public void setEstimatedSpeed(double estimatedSpeed) {
         this.estimatedSpeed = estimatedSpeed;
+        if (graph != null) graph.setEstimatedSpeed(index, estimatedSpeed);
     }
 
     public Coordinate getScreenOffset() {
@@ -70,42 +96,4 @@ public class Road {
         double l = Math.sqrt(x * x + y * y);
         return new Coordinate(y / l * length, -x / l * length);
     }
-
-    public synchronized void addParticipant(Participant participant) {
-        participants.add(participant);
-    }
-
-    public synchronized void resetParticipants() {
-        participants.clear();
-        participantIndizes.clear();
-    }
-
-    private int compare(Participant o1, Participant o2) {
-        if (o1.getPosition().getRoad() != this) return -1;
-        if (o2.getPosition().getRoad() != this) return 1;
-        return Double.compare(o1.getPosition().getRoadPosition(), o2.getPosition().getRoadPosition());
-    }
-
-    public synchronized void sortParticipants() {
-        participants.sort(this::compare);
-        for (int i = 0; i < participants.size(); i++) {
-            participantIndizes.put(participants.get(i), i);
-        }
-    }
-
-    public synchronized Participant getNext(Participant participant) {
-        Integer index = participantIndizes.get(participant);
-        if (index == null) {
-            int l = 0;
-            int r = participants.size();
-            while (l < r - 1) {
-                int m = (l + r) / 2;
-                if (compare(participant, participants.get(m)) < 0) r = m;
-                else l = m;
-            }
-            index = r;
-        } else index++;
-        if (index == participants.size()) return null;
-        else return participants.get(index);
-    }
 }
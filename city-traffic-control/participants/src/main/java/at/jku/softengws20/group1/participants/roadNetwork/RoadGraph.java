@@ -0,0 +1,153 @@
+package at.jku.softengws20.group1.participants.roadNetwork;
+
+/**
+ * Compact view of a {@link RoadNetwork} for the hot paths of routing and simulation.
+ * Crossings and roads are addressed by their dense index, adjacency is stored in compressed sparse row format
+ * and all road attributes are kept in primitive arrays. Changes of closed state, estimated speed and traffic
+ * lights are written through by {@link Road}.
+ */
+public final class RoadGraph {
+    /**
+     * index used for "no road" or "no crossing"
+     */
+    public static final int NONE = -1;
+
+    private final int crossingCount;
+    private final int roadCount;
+
+    //per crossing
+    private final double[] x;
+    private final double[] y;
+    private final int[] outStart;
+    private final int[] outRoads;
+    private final int[] inStart;
+    private final int[] inRoads;
+
+    //per road
+    private final int[] start;
+    private final int[] end;
+    private final double[] length;
+    private final double[] speedLimit;
+    private final double[] estimatedSpeed;
+    private final boolean[] closed;
+    private final boolean[] green;
+
+    RoadGraph(Crossing[] crossings, Road[] roads) {
+        crossingCount = crossings.length;
+        roadCount = roads.length;
+        x = new double[crossingCount];
+        y = new double[crossingCount];
+        outStart = new int[crossingCount + 1];
+        outRoads = new int[roadCount];
+        inStart = new int[crossingCount + 1];
+        inRoads = new int[roadCount];
+        start = new int[roadCount];
+        end = new int[roadCount];
+        length = new double[roadCount];
+        speedLimit = new double[roadCount];
+        estimatedSpeed = new double[roadCount];
+        closed = new boolean[roadCount];
+        green = new boolean[roadCount];
+
+        for (Road road : roads) {
+            int r = road.getIndex();
+            start[r] = road.getStart().getIndex();
+            end[r] = road.getEnd().getIndex();
+            length[r] = road.getLength();
+            speedLimit[r] = road.getSpeedLimit();
+            estimatedSpeed[r] = road.getEstimatedSpeed();
+            closed[r] = road.isClosed();
+            green[r] = road.isGreen();
+        }
+        //keep the order of Crossing#getRoads, so routers break ties the same way on both representations
+        for (Crossing crossing : crossings) {
+            int c = crossing.getIndex();
+            x[c] = crossing.getPosition().getX();
+            y[c] = crossing.getPosition().getY();
+            int out = outStart[c];
+            for (Road road : crossing.getRoads()) outRoads[out++] = road.getIndex();
+            outStart[c + 1] = out;
+            int in = inStart[c];
+            for (Road road : crossing.getIncomingRoads()) inRoads[in++] = road.getIndex();
+            inStart[c + 1] = in;
+        }
+    }
+
+    public int getCrossingCount() {
+        return crossingCount;
+    }
+
+    public int getRoadCount() {
+        return roadCount;
+    }
+
+    public double getX(int crossing) {
+        return x[crossing];
+    }
+
+    public double getY(int crossing) {
+        return y[crossing];
+    }
+
+    /**
+     * The roads leaving a crossing are {@code getOutRoad(i)} for {@code getOutStart(c) <= i < getOutStart(c + 1)}.
+     */
+    public int getOutStart(int crossing) {
+        return outStart[crossing];
+    }
+
+    public int getOutRoad(int i) {
+        return outRoads[i];
+    }
+
+    /**
+     * The roads ending at a crossing are {@code getInRoad(i)} for {@code getInStart(c) <= i < getInStart(c + 1)}.
+     */
+    public int getInStart(int crossing) {
+        return inStart[crossing];
+    }
+
+    public int getInRoad(int i) {
+        return inRoads[i];
+    }
+
+    public int getStart(int road) {
+        return start[road];
+    }
+
+    public int getEnd(int road) {
+        return end[road];
+    }
+
+    public double getLength(int road) {
+        return length[road];
+    }
+
+    public double getSpeedLimit(int road) {
+        return speedLimit[road];
+    }
+
+    public double getEstimatedSpeed(int road) {
+        return estimatedSpeed[road];
+    }
+
+    public boolean isClosed(int road) {
+        return closed[road];
+    }
+
+    public boolean isGreen(int road) {
+        return green[road];
+    }
+
+    void setEstimatedSpeed(int road, double estimatedSpeed) {
+        this.estimatedSpeed[road] = estimatedSpeed;
+    }
+
+    void setClosed(int road, boolean closed) {
+        this.closed[road] = closed;
+    }
+
+    void setGreen(int road, boolean green) {
+        this.green[road] = green;
+    }
+}
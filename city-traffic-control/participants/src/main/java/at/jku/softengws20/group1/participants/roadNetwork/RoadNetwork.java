@@ -1,9 +1,19 @@
 package at.jku.softengws20.group1.participants.roadNetwork;
 
+import at.jku.softengws20.group1.shared.controlsystem.RoadSegment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class RoadNetwork {
     public final Crossing[] crossings;
     public final Road[] roads;
-    private int version = 0;
+    public final RoadGraph graph;
+    private final AtomicLong trafficLightVersion = new AtomicLong();
+    private final ConcurrentLinkedQueue<Crossing> changedTrafficLights = new ConcurrentLinkedQueue<>();
     private double MinX = Double.POSITIVE_INFINITY;
     private double MinY = Double.POSITIVE_INFINITY;
     private double MaxX = Double.NEGATIVE_INFINITY;
@@ -12,6 +22,10 @@ public class RoadNetwork {
     public RoadNetwork(Crossing[] crossings, Road[] roads) {
         this.crossings = crossings;
         this.roads = roads;
+        for (int i = 0; i < crossings.length; i++) crossings[i].setIndex(i);
+        for (int i = 0; i < roads.length; i++) roads[i].setIndex(i);
+        graph = new RoadGraph(crossings, roads);
+        for (Road road : roads) road.setGraph(graph);
         for (Crossing crossing : crossings) {
             if (crossing.getPosition().getX() < this.MinX) this.MinX = crossing.getPosition().getX();
             if (crossing.getPosition().getY() < this.MinY) this.MinY = crossing.getPosition().getY();
@@ -20,12 +34,67 @@ public class RoadNetwork {
         }
     }
 
-    public void incVersion() {
-        version++;
+    /**
+     * Converts the road network of the control system. Crossings and roads keep the order of the source,
+     * so the same map always yields the same indices.
+     */
+    public static RoadNetwork create(at.jku.softengws20.group1.shared.controlsystem.RoadNetwork source) {
+        HashMap<String, Crossing> crossingsById = new HashMap<>();
+        Crossing[] crossings = new Crossing[source.getCrossings().length];
+        for (int i = 0; i < crossings.length; i++) {
+            at.jku.softengws20.group1.shared.controlsystem.Crossing crossingSource = source.getCrossings()[i];
+            at.jku.softengws20.group1.shared.controlsystem.Position positionNode = crossingSource.getPosition();
+            crossings[i] = new Crossing(crossingSource.getId(), new Coordinate(positionNode.getX(), positionNode.getY()));
+            crossingsById.put(crossings[i].getId(), crossings[i]);
+        }
+        Road[] roads = new Road[source.getRoadSegments().length];
+        for (int i = 0; i < roads.length; i++) {
+            RoadSegment roadSource = source.getRoadSegments()[i];
+            roads[i] = new Road(roadSource.getId(), crossingsById.get(roadSource.getCrossingAId()), crossingsById.get(roadSource.getCrossingBId()),
+                    roadSource.getLength() * 1000, Math.max(roadSource.getDefaultSpeedLimit(), 30) / 3.6);
+        }
+        return new RoadNetwork(crossings, roads);
+    }
+
+    /**
+     * Publishes a new traffic light state of a crossing. Safe to call from any thread: the roads keep their
+     * state until the simulation calls {@link #applyTrafficLights()} between two ticks, so cars never see a
+     * partially switched crossing. Roads ending at the crossing that are not given turn red.
+     */
+    public void setGreenRoads(Crossing crossing, Iterable<Road> greenRoads) {
+        synchronized (changedTrafficLights) {
+            publishTrafficLight(crossing, greenRoads);
+        }
     }
 
-    public int getVersion() {
-        return version;
+    /**
+     * Publishes the traffic light states of several crossings together: {@link #applyTrafficLights()} applies
+     * either all or none of them.
+     */
+    public void setGreenRoads(Map<Crossing, ? extends Iterable<Road>> greenRoads) {
+        synchronized (changedTrafficLights) {
+            for (Map.Entry<Crossing, ? extends Iterable<Road>> entry : greenRoads.entrySet()) {
+                publishTrafficLight(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void publishTrafficLight(Crossing crossing, Iterable<Road> greenRoads) {
+        ArrayList<Road> roads = new ArrayList<>();
+        for (Road road : greenRoads) roads.add(road);
+        crossing.publishTrafficLight(new Crossing.TrafficLight(trafficLightVersion.incrementAndGet(), roads.toArray(new Road[0])));
+        changedTrafficLights.add(crossing);
+    }
+
+    /**
+     * Applies the traffic light states published since the last call. Must only be called while no car is updated.
+     */
+    public void applyTrafficLights() {
+        synchronized (changedTrafficLights) {
+            for (Crossing crossing = changedTrafficLights.poll(); crossing != null; crossing = changedTrafficLights.poll()) {
+                crossing.applyTrafficLight();
+            }
+        }
     }
 
     public double getMinX() {
@@ -0,0 +1,67 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples an index with probability proportional to its weight in O(1) (Vose's alias method).
+ * Immutable, so it can be shared by parallel samplers.
+ */
+final class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+    private final double total;
+
+    /**
+     * @param weights non negative weights, not modified
+     */
+    AliasTable(double[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+        double sum = 0;
+        for (double weight : weights) sum += weight;
+        total = sum;
+        if (n == 0 || sum <= 0) return;
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = scaled[l] + scaled[s] - 1;
+            if (scaled[l] < 1) small[smallCount++] = l;
+            else large[largeCount++] = l;
+        }
+        //left overs are 1 up to rounding errors, but an index of weight 0 must never be sampled
+        int positive = 0;
+        while (weights[positive] <= 0) positive++;
+        while (largeCount > 0) probability[large[--largeCount]] = 1;
+        while (smallCount > 0) {
+            int s = small[--smallCount];
+            probability[s] = weights[s] > 0 ? 1 : 0;
+            alias[s] = positive;
+        }
+    }
+
+    /**
+     * @return false if all weights are 0, {@link #sample} must not be called then
+     */
+    boolean isEmpty() {
+        return total <= 0;
+    }
+
+    int sample(SplittableRandom random) {
+        int i = random.nextInt(probability.length);
+        return random.nextDouble() < probability[i] ? i : alias[i];
+    }
+}
@@ -0,0 +1,299 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.roadNetwork.Position;
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps the state of all cars in primitive arrays indexed by a dense slot (structure of arrays).
+ * Slots are compacted after every tick, so slot {@code 0 .. count-1} are always in use.
+ * {@link Participant} objects are only created as views for {@link #getParticipants()}.
+ */
+public class ArraySimulationEngine implements SimulationEngine {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NONE = RoadGraph.NONE;
+
+    private final Navigation navigation;
+    private int count = 0;
+
+    //state per slot
+    private int[] id = new int[INITIAL_CAPACITY];
+    private int[] road = new int[INITIAL_CAPACITY];
+    private double[] roadPosition = new double[INITIAL_CAPACITY];
+    private double[] velocity = new double[INITIAL_CAPACITY];
+    private double[] acceleration = new double[INITIAL_CAPACITY];
+    private int[] destinationRoad = new int[INITIAL_CAPACITY];
+    private double[] destinationPosition = new double[INITIAL_CAPACITY];
+    private String[] callback = new String[INITIAL_CAPACITY];
+    private int[][] route = new int[INITIAL_CAPACITY][];
+    private int[] routeIndex = new int[INITIAL_CAPACITY];
+    private int[] routeVersion = new int[INITIAL_CAPACITY];
+
+    //car ahead as seen at the start of the tick
+    private int[] aheadRoad = new int[INITIAL_CAPACITY];
+    private double[] aheadPosition = new double[INITIAL_CAPACITY];
+    private boolean[] arrived = new boolean[INITIAL_CAPACITY];
+    private int[] previousRoad = new int[INITIAL_CAPACITY];
+
+    //occupancy index: slots sorted by road and road position
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int[] sorted = new int[INITIAL_CAPACITY];
+    private int[] rank = new int[INITIAL_CAPACITY];
+    private int[] remap = new int[INITIAL_CAPACITY];
+    private int[] roadStart = new int[1];
+    private int[] roadCursor = new int[0];
+    private int indexed = 0;
+
+    public ArraySimulationEngine(Navigation navigation) {
+        this.navigation = navigation;
+    }
+
+    @Override
+    public void addParticipant(Participant participant) {
+        if (count == id.length) grow(count * 2);
+        int slot = count++;
+        id[slot] = participant.getId();
+        road[slot] = participant.getPosition().getRoad().getIndex();
+        roadPosition[slot] = participant.getPosition().getRoadPosition();
+        velocity[slot] = participant.getVelocity();
+        acceleration[slot] = participant.getAcceleration();
+        destinationRoad[slot] = participant.getDestination().getRoad().getIndex();
+        destinationPosition[slot] = participant.getDestination().getRoadPosition();
+        callback[slot] = participant.getCallback();
+        route[slot] = participant.getRoute();
+        routeIndex[slot] = participant.getRouteIndex();
+        routeVersion[slot] = participant.getRouteVersion();
+    }
+
+    @Override
+    public int getParticipantCount() {
+        return count;
+    }
+
+    @Override
+    public Participant[] getParticipants() {
+        Road[] roads = navigation.getRoadNetwork().roads;
+        Participant[] participants = new Participant[count];
+        for (int slot = 0; slot < count; slot++) {
+            participants[slot] = new Participant(id[slot], new Position(roads[road[slot]], roadPosition[slot]),
+                    new Position(roads[destinationRoad[slot]], destinationPosition[slot]), null,
+                    velocity[slot], acceleration[slot], callback[slot], route[slot], routeIndex[slot]);
+        }
+        return participants;
+    }
+
+    @Override
+    public void forEachParticipant(ParticipantVisitor visitor) {
+        for (int slot = 0; slot < count; slot++) {
+            visitor.visit(id[slot], road[slot], roadPosition[slot], velocity[slot], acceleration[slot], callback[slot] != null);
+        }
+    }
+
+    @Override
+    public void tick(double elapsed, CarEvents events) {
+        Road[] roads = navigation.getRoadNetwork().roads;
+        RoadGraph graph = navigation.getRoadNetwork().graph;
+        buildIndex(graph.getRoadCount());
+        IntStream.range(0, count).parallel().forEach(slot -> updateAcceleration(slot, graph, roads));
+        IntStream.range(0, count).parallel().forEach(slot -> {
+            previousRoad[slot] = road[slot];
+            try {
+                arrived[slot] = updatePosition(slot, elapsed, graph);
+            } catch (Exception e) {
+                e.printStackTrace();
+                arrived[slot] = false;
+            }
+        });
+        for (int slot = 0; slot < count; slot++) {
+            if (arrived[slot]) events.arrive(id[slot], previousRoad[slot]);
+            else events.move(id[slot], previousRoad[slot], road[slot]);
+        }
+        compact();
+    }
+
+    @Override
+    public void shutdown() {
+        //the parallel streams run in the pool of the caller, nothing to release
+    }
+
+    /**
+     * Plans the route on first use and plans it again if one of the remaining roads was closed or got much slower.
+     */
+    private void updateRoute(int slot) {
+        int version = navigation.getRouteVersion();
+        if (route[slot] != null && version == routeVersion[slot]) return;
+        if (route[slot] == null || !navigation.isRouteValid(route[slot], routeIndex[slot] + 1, routeVersion[slot])) {
+            route[slot] = navigation.getRoute(road[slot], destinationRoad[slot]);
+            routeIndex[slot] = 0;
+        }
+        routeVersion[slot] = version;
+    }
+
+    private int getNextRoad(int slot) {
+        int[] slotRoute = route[slot];
+        return routeIndex[slot] + 1 < slotRoute.length ? slotRoute[routeIndex[slot] + 1] : NONE;
+    }
+
+    private void updateAcceleration(int slot, RoadGraph graph, Road[] roads) {
+        updateRoute(slot);
+        int current = road[slot];
+        int next = NONE;
+        int r = rank[slot];
+        if (r + 1 < roadStart[current + 1]) next = order[r + 1];
+        else {
+            int nextRoad = getNextRoad(slot);
+            if (nextRoad != NONE && roadStart[nextRoad] < roadStart[nextRoad + 1])
+                next = order[roadStart[nextRoad]];
+        }
+        double nextPosition = 0;
+        double nextVelocity = 0;
+        if (next != NONE) {
+            aheadRoad[slot] = road[next];
+            aheadPosition[slot] = roadPosition[next];
+            nextPosition = (road[next] != current ? graph.getLength(current) : 0) + roadPosition[next];
+            nextVelocity = velocity[next];
+        } else aheadRoad[slot] = NONE;
+        acceleration[slot] = DrivingModel.acceleration(velocity[slot], roadPosition[slot], graph.getLength(current),
+                graph.getSpeedLimit(current), graph.isGreen(current),
+                next != NONE, nextPosition, nextVelocity);
+    }
+
+    /**
+     * @return true if the participant arrived or can not reach its destination
+     */
+    private boolean updatePosition(int slot, double elapsed, RoadGraph graph) {
+        double newPos = roadPosition[slot] + velocity[slot] * elapsed;
+        if (aheadRoad[slot] == road[slot] && newPos > aheadPosition[slot])
+            newPos = aheadPosition[slot] - 0.01;
+        if (road[slot] == destinationRoad[slot] && newPos >= destinationPosition[slot]) {
+            if (callback[slot] != null) ArrivalDispatcher.getInstance().offer(callback[slot]);
+            return true;
+        }
+        int cnt = 0;
+        int current = road[slot];
+        while (newPos > graph.getLength(current)) {
+            if (cnt++ > 100) {
+                System.out.println("navigation loop");
+                return true;
+            }
+            if (current == destinationRoad[slot]) return true;
+            newPos -= graph.getLength(current);
+            current = getNextRoad(slot);
+            if (current == NONE) return true; //destination not reachable
+            routeIndex[slot]++;
+        }
+        road[slot] = current;
+        roadPosition[slot] = newPos;
+        velocity[slot] += elapsed * acceleration[slot];
+        if (velocity[slot] < 0) velocity[slot] = 0;
+        return false;
+    }
+
+    /**
+     * Sorts all slots by road and road position. The previous order is used as input, so the slots of each road
+     * are already (almost) sorted and the insertion sort per road runs in linear time.
+     */
+    private void buildIndex(int roadCount) {
+        for (int slot = indexed; slot < count; slot++) order[slot] = slot;
+        indexed = count;
+        if (roadStart.length != roadCount + 1) {
+            roadStart = new int[roadCount + 1];
+            roadCursor = new int[roadCount];
+        } else Arrays.fill(roadStart, 0);
+
+        //counting sort by road, stable with respect to the previous order
+        for (int i = 0; i < count; i++) roadStart[road[order[i]] + 1]++;
+        for (int r = 0; r < roadCount; r++) roadStart[r + 1] += roadStart[r];
+        System.arraycopy(roadStart, 0, roadCursor, 0, roadCount);
+        for (int i = 0; i < count; i++) {
+            int slot = order[i];
+            sorted[roadCursor[road[slot]]++] = slot;
+        }
+
+        //insertion sort per road
+        for (int r = 0; r < roadCount; r++) {
+            for (int i = roadStart[r] + 1; i < roadStart[r + 1]; i++) {
+                int slot = sorted[i];
+                double pos = roadPosition[slot];
+                int j = i - 1;
+                while (j >= roadStart[r] && roadPosition[sorted[j]] > pos) {
+                    sorted[j + 1] = sorted[j];
+                    j--;
+                }
+                sorted[j + 1] = slot;
+            }
+        }
+        int[] tmp = order;
+        order = sorted;
+        sorted = tmp;
+        for (int i = 0; i < count; i++) rank[order[i]] = i;
+    }
+
+    /**
+     * Removes arrived participants while keeping the relative order of the remaining slots.
+     */
+    private void compact() {
+        int target = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (arrived[slot]) {
+                remap[slot] = NONE;
+                continue;
+            }
+            remap[slot] = target;
+            if (target != slot) move(slot, target);
+            target++;
+        }
+        int orderTarget = 0;
+        for (int i = 0; i < indexed; i++) {
+            int slot = remap[order[i]];
+            if (slot != NONE) order[orderTarget++] = slot;
+        }
+        Arrays.fill(arrived, 0, count, false);
+        for (int slot = target; slot < count; slot++) {
+            callback[slot] = null;
+            route[slot] = null;
+        }
+        count = target;
+        indexed = orderTarget;
+    }
+
+    private void move(int from, int to) {
+        id[to] = id[from];
+        road[to] = road[from];
+        roadPosition[to] = roadPosition[from];
+        velocity[to] = velocity[from];
+        acceleration[to] = acceleration[from];
+        destinationRoad[to] = destinationRoad[from];
+        destinationPosition[to] = destinationPosition[from];
+        callback[to] = callback[from];
+        route[to] = route[from];
+        routeIndex[to] = routeIndex[from];
+        routeVersion[to] = routeVersion[from];
+    }
+
+    private void grow(int capacity) {
+        id = Arrays.copyOf(id, capacity);
+        road = Arrays.copyOf(road, capacity);
+        roadPosition = Arrays.copyOf(roadPosition, capacity);
+        velocity = Arrays.copyOf(velocity, capacity);
+        acceleration = Arrays.copyOf(acceleration, capacity);
+        destinationRoad = Arrays.copyOf(destinationRoad, capacity);
+        destinationPosition = Arrays.copyOf(destinationPosition, capacity);
+        callback = Arrays.copyOf(callback, capacity);
+        route = Arrays.copyOf(route, capacity);
+        routeIndex = Arrays.copyOf(routeIndex, capacity);
+        routeVersion = Arrays.copyOf(routeVersion, capacity);
+        aheadRoad = Arrays.copyOf(aheadRoad, capacity);
+        aheadPosition = Arrays.copyOf(aheadPosition, capacity);
+        arrived = Arrays.copyOf(arrived, capacity);
+        previousRoad = Arrays.copyOf(previousRoad, capacity);
+        order = Arrays.copyOf(order, capacity);
+        sorted = Arrays.copyOf(sorted, capacity);
+        rank = Arrays.copyOf(rank, capacity);
+        remap = Arrays.copyOf(remap, capacity);
+    }
+}
@@ -0,0 +1,292 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.shared.Config;
+import at.jku.softengws20.group1.shared.maintenance.MaintenanceInterface;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the arrival callbacks of participants on one shared keep-alive {@link HttpClient}.
+ * <p>
+ * The simulation only puts the callback into a bounded queue, which never blocks the tick; arrivals that do not
+ * fit are dropped and counted. A background thread empties the queue every
+ * {@link Config#PARTICIPANTS_ARRIVAL_FLUSH_INTERVAL} ms. Callbacks of receivers known to accept a batch
+ * ({@link #BATCH_PATHS}) are sent together as one POST of their ids to the parent path (see
+ * {@link at.jku.softengws20.group1.shared.maintenance.CarPath#getCallbackUri()}), all other callbacks get the
+ * plain GET. If a batch POST is answered with a client error, the receiver gets the GETs from then on. Requests without a response or
+ * answered with a server error are retried with exponential backoff, a client error is counted as failed at once.
+ */
+public final class ArrivalDispatcher {
+    /**
+     * paths of the batch endpoints known to accept a POST of car ids, matched at the end of the parent path
+     * of a callback
+     */
+    private static final Set<String> BATCH_PATHS =
+            Set.of(MaintenanceInterface.URL + "/" + MaintenanceInterface.NOTIFY_MAINTENANCE_CAR_ARRIVED_URL);
+
+    private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<>(Config.PARTICIPANTS_ARRIVAL_QUEUE_CAPACITY);
+    private final HttpClient client;
+    private final ScheduledExecutorService scheduler;
+    private final ObjectMapper mapper = new ObjectMapper();
+    /**
+     * batch URIs that answered a POST with a client error, their callbacks are sent one by one
+     */
+    private final Set<URI> unbatchable = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batchRequests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Created on first use, so the dispatcher thread only starts once a participant arrives.
+     */
+    private static class Holder {
+        private static final ArrivalDispatcher INSTANCE = new ArrivalDispatcher();
+    }
+
+    public static ArrivalDispatcher getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private ArrivalDispatcher() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "arrival-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(scheduler)
+                .build();
+        scheduler.scheduleWithFixedDelay(this::flush, Config.PARTICIPANTS_ARRIVAL_FLUSH_INTERVAL,
+                Config.PARTICIPANTS_ARRIVAL_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the callback of an arrived participant. Safe to call from the parallel parts of a tick.
+     */
+    public void offer(String callback) {
+        if (queue.offer(callback)) enqueued.incrementAndGet();
+        else dropped.incrementAndGet();
+    }
+
+    private void flush() {
+        ArrayList<String> callbacks = new ArrayList<>();
+        queue.drainTo(callbacks);
+        if (callbacks.isEmpty()) return;
+
+        //group by host and path without the last segment, which identifies the car
+        LinkedHashMap<URI, List<String>> batches = new LinkedHashMap<>();
+        for (String callback : callbacks) {
+            URI uri;
+            try {
+                uri = URI.create(callback);
+            } catch (IllegalArgumentException e) {
+                failed.incrementAndGet();
+                continue;
+            }
+            URI batchUri = batchUri(uri);
+            if (batchUri == null || unbatchable.contains(batchUri)) send(get(uri), 1, 0);
+            else batches.computeIfAbsent(batchUri, k -> new ArrayList<>()).add(callback);
+        }
+        batches.forEach((batchUri, group) -> {
+            for (int from = 0; from < group.size(); from += Config.PARTICIPANTS_ARRIVAL_MAX_BATCH) {
+                List<String> chunk = group.subList(from, Math.min(group.size(), from + Config.PARTICIPANTS_ARRIVAL_MAX_BATCH));
+                if (chunk.size() == 1) send(get(URI.create(chunk.get(0))), 1, 0);
+                else sendBatch(batchUri, new ArrayList<>(chunk));
+            }
+        });
+    }
+
+    /**
+     * @return the URI accepting a batch of the callback, or null if the callback has no id segment or its
+     * receiver is not known to accept batches
+     */
+    private static URI batchUri(URI uri) {
+        String path = uri.getRawPath();
+        if (uri.getHost() == null || uri.getRawQuery() != null || path == null) return null;
+        int slash = path.lastIndexOf('/');
+        if (slash <= 0 || slash == path.length() - 1) return null;
+        String parent = path.substring(0, slash);
+        if (BATCH_PATHS.stream().noneMatch(parent::endsWith)) return null;
+        return URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + parent);
+    }
+
+    private static String lastSegment(String callback) {
+        return callback.substring(callback.lastIndexOf('/') + 1);
+    }
+
+    private static HttpRequest get(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).build();
+    }
+
+    private void sendBatch(URI batchUri, List<String> callbacks) {
+        byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(callbacks.stream().map(ArrivalDispatcher::lastSegment).toArray(String[]::new));
+        } catch (JsonProcessingException e) {
+            failed.addAndGet(callbacks.size());
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(batchUri)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        batchRequests.incrementAndGet();
+        send(request, callbacks.size(), 0, () -> {
+            //the receiver rejects the batch: remember it and fall back to the single callbacks
+            unbatchable.add(batchUri);
+            for (String callback : callbacks) send(get(URI.create(callback)), 1, 0);
+        });
+    }
+
+    private void send(HttpRequest request, int count, int attempt) {
+        send(request, count, attempt, null);
+    }
+
+    /**
+     * @param notBatchable called instead of counting a failure if a batch request is answered with a client error
+     */
+    private void send(HttpRequest request, int count, int attempt, Runnable notBatchable) {
+        requests.incrementAndGet();
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            inFlight.decrementAndGet();
+            int status = response == null ? 0 : response.statusCode();
+            if (notBatchable != null && status >= 400 && status < 500) {
+                notBatchable.run();
+            } else if (error == null && status < 400) {
+                delivered.addAndGet(count);
+            } else if (error == null && status < 500) {
+                //the receiver rejects the request, sending it again does not help
+                failed.addAndGet(count);
+            } else if (attempt < Config.PARTICIPANTS_ARRIVAL_MAX_RETRIES) {
+                retries.incrementAndGet();
+                scheduler.schedule(() -> send(request, count, attempt + 1, notBatchable),
+                        (long) Config.PARTICIPANTS_ARRIVAL_RETRY_DELAY << attempt, TimeUnit.MILLISECONDS);
+            } else {
+                failed.addAndGet(count);
+            }
+        });
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(this);
+    }
+
+    /**
+     * Snapshot of the counters of the dispatcher, counted in arrivals unless noted otherwise.
+     */
+    public static class Metrics {
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final long enqueued;
+        private final long dropped;
+        private final long delivered;
+        private final long failed;
+        private final long requests;
+        private final long batchRequests;
+        private final long retries;
+        private final int inFlight;
+        private final int maxRetries;
+        private final int retryDelay;
+
+        private Metrics(ArrivalDispatcher dispatcher) {
+            queueDepth = dispatcher.queue.size();
+            queueCapacity = Config.PARTICIPANTS_ARRIVAL_QUEUE_CAPACITY;
+            enqueued = dispatcher.enqueued.get();
+            dropped = dispatcher.dropped.get();
+            delivered = dispatcher.delivered.get();
+            failed = dispatcher.failed.get();
+            requests = dispatcher.requests.get();
+            batchRequests = dispatcher.batchRequests.get();
+            retries = dispatcher.retries.get();
+            inFlight = dispatcher.inFlight.get();
+            maxRetries = Config.PARTICIPANTS_ARRIVAL_MAX_RETRIES;
+            retryDelay = Config.PARTICIPANTS_ARRIVAL_RETRY_DELAY;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public long getEnqueued() {
+            return enqueued;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * HTTP requests sent, including retries
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * HTTP requests carrying more than one arrival
+         */
+        public long getBatchRequests() {
+            return batchRequests;
+        }
+
+        /**
+         * HTTP requests sent again after a failure
+         */
+        public long getRetries() {
+            return retries;
+        }
+
+        /**
+         * HTTP requests waiting for a response
+         */
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public int getRetryDelay() {
+            return retryDelay;
+        }
+    }
+}
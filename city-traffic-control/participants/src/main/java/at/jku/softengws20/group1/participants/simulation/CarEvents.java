@@ -0,0 +1,134 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+import at.jku.softengws20.group1.shared.detection.CarEventType;
+import at.jku.softengws20.group1.shared.impl.model.CarEvent;
+
+import java.util.Arrays;
+
+/**
+ * Road changes of cars in the order they happened, kept in primitive arrays so recording them during a tick
+ * does not allocate. Only converted to {@link CarEvent}s when they are sent.
+ */
+public final class CarEvents {
+    private static final CarEventType[] TYPES = CarEventType.values();
+
+    private int[] type = new int[64];
+    private int[] car = new int[64];
+    private int[] road = new int[64];
+    private int size = 0;
+
+    public void enter(int carId, int road) {
+        add(CarEventType.ENTER, carId, road);
+    }
+
+    public void leave(int carId, int road) {
+        add(CarEventType.LEAVE, carId, road);
+    }
+
+    public void arrive(int carId, int road) {
+        add(CarEventType.ARRIVE, carId, road);
+    }
+
+    /**
+     * Records a car that drove from one road to another, nothing if the road did not change.
+     */
+    public void move(int carId, int from, int to) {
+        if (from == to) return;
+        leave(carId, from);
+        enter(carId, to);
+    }
+
+    private void add(CarEventType eventType, int carId, int roadIndex) {
+        if (size == type.length) grow(size * 2);
+        type[size] = eventType.ordinal();
+        car[size] = carId;
+        road[size] = roadIndex;
+        size++;
+    }
+
+    public void addAll(CarEvents other) {
+        if (size + other.size > type.length) grow(Math.max(size + other.size, size * 2));
+        System.arraycopy(other.type, 0, type, size, other.size);
+        System.arraycopy(other.car, 0, car, size, other.size);
+        System.arraycopy(other.road, 0, road, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public CarEventType getType(int i) {
+        return TYPES[type[i]];
+    }
+
+    public int getCarId(int i) {
+        return car[i];
+    }
+
+    public int getRoad(int i) {
+        return road[i];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Replaces the events by the net change of every car since before the first event: a LEAVE and an ENTER,
+     * a single ENTER or ARRIVE, or nothing. Applying the result to road counters has the same effect as applying
+     * the original events. The events are ordered by car afterwards.
+     */
+    public void coalesce() {
+        //car in the upper, position in the lower half, so sorting keeps the order of the events of one car
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) keys[i] = ((long) car[i] << 32) | i;
+        Arrays.sort(keys);
+        int[] oldType = type;
+        int[] oldCar = car;
+        int[] oldRoad = road;
+        type = new int[Math.max(64, size)];
+        car = new int[type.length];
+        road = new int[type.length];
+        int count = size;
+        size = 0;
+        for (int from = 0; from < count; ) {
+            int carId = oldCar[(int) keys[from]];
+            int to = from + 1;
+            while (to < count && oldCar[(int) keys[to]] == carId) to++;
+            int first = (int) keys[from];
+            int last = (int) keys[to - 1];
+            int initial = oldType[first] == CarEventType.ENTER.ordinal() ? -1 : oldRoad[first];
+            int current = oldType[last] == CarEventType.ENTER.ordinal() ? oldRoad[last] : -1;
+            if (initial >= 0 && current < 0) {
+                if (oldType[last] == CarEventType.ARRIVE.ordinal()) arrive(carId, initial);
+                else leave(carId, initial);
+            } else if (initial < 0 && current >= 0) {
+                enter(carId, current);
+            } else if (initial >= 0) {
+                move(carId, initial, current);
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * @param roads the roads of the road network, to resolve the road indices
+     */
+    public CarEvent[] toArray(Road[] roads) {
+        CarEvent[] events = new CarEvent[size];
+        for (int i = 0; i < size; i++) events[i] = new CarEvent(car[i], TYPES[type[i]], roads[road[i]].getId());
+        return events;
+    }
+
+    private void grow(int capacity) {
+        type = Arrays.copyOf(type, capacity);
+        car = Arrays.copyOf(car, capacity);
+        road = Arrays.copyOf(road, capacity);
+    }
+}
@@ -0,0 +1,316 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Generates the trips of new participants from a demand model without any routing call.
+ * <p>
+ * The demand is either a weight per pair of origin and destination road, or a production (trips starting) and an
+ * attraction (trips ending) weight per road. Trips are sampled in O(1) from alias tables. Reachability is
+ * guaranteed by the strongly connected components of the crossings over the open roads: a trip is only generated
+ * if the end of its first road and the start of its last road are in the same component. Closed roads are taken
+ * into account by rebuilding the tables when the set of closed roads changed.
+ * <p>
+ * Demand files are CSV with a header line, either {@code origin,destination,weight} with one line per pair of road
+ * ids, or {@code road,production,attraction} with one line per road (missing roads get 0). Empty lines and lines
+ * starting with {@code #} are ignored.
+ */
+public class DemandModel {
+    /**
+     * trips generated with one random generator, independent of the number of threads
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    private final RoadNetwork roadNetwork;
+    //production / attraction model
+    private final double[] production;
+    private final double[] attraction;
+    //origin destination model
+    private final int[] origins;
+    private final int[] destinations;
+    private final double[] weights;
+
+    private boolean[] closed;
+    private AliasTable originTable;
+    /**
+     * per component: roads starting in it and their alias table by attraction
+     */
+    private int[][] destinationRoads;
+    private AliasTable[] destinationTables;
+    private int[] component;
+    private int[] pairs;
+    private AliasTable pairTable;
+
+    private DemandModel(RoadNetwork roadNetwork, double[] production, double[] attraction,
+                        int[] origins, int[] destinations, double[] weights) {
+        this.roadNetwork = roadNetwork;
+        this.production = production;
+        this.attraction = attraction;
+        this.origins = origins;
+        this.destinations = destinations;
+        this.weights = weights;
+    }
+
+    /**
+     * @return a model where every road is equally likely as start and destination
+     */
+    public static DemandModel uniform(RoadNetwork roadNetwork) {
+        double[] ones = new double[roadNetwork.roads.length];
+        Arrays.fill(ones, 1);
+        return new DemandModel(roadNetwork, ones, ones, null, null, null);
+    }
+
+    public static DemandModel load(RoadNetwork roadNetwork, Path file) throws IOException {
+        HashMap<String, Road> roads = new HashMap<>();
+        for (Road road : roadNetwork.roads) roads.put(road.getId(), road);
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String header = null;
+            ArrayList<String[]> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (header == null) header = line.replace(" ", "");
+                else lines.add(line.split("\\s*,\\s*"));
+            }
+            if ("origin,destination,weight".equals(header)) {
+                int[] origins = new int[lines.size()];
+                int[] destinations = new int[lines.size()];
+                double[] weights = new double[lines.size()];
+                for (int i = 0; i < lines.size(); i++) {
+                    String[] values = values(lines.get(i), i);
+                    origins[i] = road(roads, values[0], i).getIndex();
+                    destinations[i] = road(roads, values[1], i).getIndex();
+                    weights[i] = weight(values[2], i);
+                }
+                return new DemandModel(roadNetwork, null, null, origins, destinations, weights);
+            }
+            if ("road,production,attraction".equals(header)) {
+                double[] production = new double[roadNetwork.roads.length];
+                double[] attraction = new double[roadNetwork.roads.length];
+                for (int i = 0; i < lines.size(); i++) {
+                    String[] values = values(lines.get(i), i);
+                    int road = road(roads, values[0], i).getIndex();
+                    production[road] = weight(values[1], i);
+                    attraction[road] = weight(values[2], i);
+                }
+                return new DemandModel(roadNetwork, production, attraction, null, null, null);
+            }
+            throw new IOException("unknown demand file header: " + header);
+        }
+    }
+
+    private static String[] values(String[] values, int line) throws IOException {
+        if (values.length != 3) throw new IOException("demand line " + (line + 1) + ": expected 3 values");
+        return values;
+    }
+
+    private static Road road(HashMap<String, Road> roads, String id, int line) throws IOException {
+        Road road = roads.get(id);
+        if (road == null) throw new IOException("demand line " + (line + 1) + ": unknown road " + id);
+        return road;
+    }
+
+    private static double weight(String value, int line) throws IOException {
+        double weight;
+        try {
+            weight = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("demand line " + (line + 1) + ": invalid weight " + value);
+        }
+        if (!(weight >= 0) || Double.isInfinite(weight)) throw new IOException("demand line " + (line + 1) + ": invalid weight " + value);
+        return weight;
+    }
+
+    /**
+     * Samples trips in parallel. The result only depends on the seed, not on the number of threads.
+     * Fewer trips are returned if the demand has no reachable trip.
+     */
+    public synchronized Trips generate(int count, SplittableRandom random) {
+        update();
+        Trips trips = new Trips(count);
+        if (pairTable == null ? originTable.isEmpty() : pairTable.isEmpty()) {
+            trips.count = 0;
+            return trips;
+        }
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int i = 0; i < chunks; i++) randoms[i] = random.split();
+        RoadGraph graph = roadNetwork.graph;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            SplittableRandom chunkRandom = randoms[chunk];
+            for (int i = chunk * CHUNK_SIZE; i < Math.min(count, (chunk + 1) * CHUNK_SIZE); i++) {
+                int start;
+                int end;
+                if (pairTable != null) {
+                    int pair = pairs[pairTable.sample(chunkRandom)];
+                    start = origins[pair];
+                    end = destinations[pair];
+                } else {
+                    start = originTable.sample(chunkRandom);
+                    int c = component[graph.getEnd(start)];
+                    end = destinationRoads[c][destinationTables[c].sample(chunkRandom)];
+                }
+                trips.startRoads[i] = start;
+                trips.startPositions[i] = chunkRandom.nextDouble() * graph.getLength(start);
+                trips.endRoads[i] = end;
+                trips.endPositions[i] = chunkRandom.nextDouble() * graph.getLength(end);
+            }
+        });
+        return trips;
+    }
+
+    /**
+     * Rebuilds the tables on first use and when roads were opened or closed.
+     */
+    private void update() {
+        RoadGraph graph = roadNetwork.graph;
+        boolean changed = closed == null;
+        if (closed == null) closed = new boolean[graph.getRoadCount()];
+        for (int road = 0; road < closed.length; road++) {
+            if (closed[road] != graph.isClosed(road)) {
+                closed[road] = graph.isClosed(road);
+                changed = true;
+            }
+        }
+        if (!changed) return;
+
+        component = components(graph);
+        if (weights != null) {
+            int[] kept = new int[weights.length];
+            int count = 0;
+            for (int pair = 0; pair < weights.length; pair++) {
+                if (weights[pair] > 0 && !closed[origins[pair]] && !closed[destinations[pair]]
+                        && component[graph.getEnd(origins[pair])] == component[graph.getStart(destinations[pair])])
+                    kept[count++] = pair;
+            }
+            pairs = Arrays.copyOf(kept, count);
+            double[] keptWeights = new double[count];
+            for (int i = 0; i < count; i++) keptWeights[i] = weights[pairs[i]];
+            pairTable = new AliasTable(keptWeights);
+            return;
+        }
+
+        int componentCount = 0;
+        for (int c : component) componentCount = Math.max(componentCount, c + 1);
+        int[] size = new int[componentCount];
+        for (int road = 0; road < closed.length; road++) {
+            if (!closed[road] && attraction[road] > 0) size[component[graph.getStart(road)]]++;
+        }
+        destinationRoads = new int[componentCount][];
+        for (int c = 0; c < componentCount; c++) destinationRoads[c] = new int[size[c]];
+        Arrays.fill(size, 0);
+        for (int road = 0; road < closed.length; road++) {
+            if (!closed[road] && attraction[road] > 0) {
+                int c = component[graph.getStart(road)];
+                destinationRoads[c][size[c]++] = road;
+            }
+        }
+        destinationTables = new AliasTable[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            double[] componentWeights = new double[destinationRoads[c].length];
+            for (int i = 0; i < componentWeights.length; i++) componentWeights[i] = attraction[destinationRoads[c][i]];
+            destinationTables[c] = new AliasTable(componentWeights);
+        }
+        double[] originWeights = new double[closed.length];
+        for (int road = 0; road < closed.length; road++) {
+            if (!closed[road] && destinationRoads[component[graph.getEnd(road)]].length > 0)
+                originWeights[road] = production[road];
+        }
+        originTable = new AliasTable(originWeights);
+    }
+
+    /**
+     * Strongly connected components of the crossings over the open roads (iterative Tarjan).
+     * @return the component of every crossing
+     */
+    static int[] components(RoadGraph graph) {
+        int n = graph.getCrossingCount();
+        int[] component = new int[n];
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] next = new int[n];
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] callStack = new int[n];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int stackSize = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = lowLink[root] = counter++;
+            next[root] = graph.getOutStart(root);
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (next[v] < graph.getOutStart(v + 1)) {
+                    int road = graph.getOutRoad(next[v]++);
+                    if (graph.isClosed(road)) continue;
+                    int w = graph.getEnd(road);
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = counter++;
+                        next[w] = graph.getOutStart(w);
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) lowLink[v] = Math.min(lowLink[v], index[w]);
+                } else {
+                    depth--;
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                    }
+                    if (lowLink[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--stackSize];
+                            onStack[w] = false;
+                            component[w] = components;
+                        } while (w != v);
+                        components++;
+                    }
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Generated trips as road indices and positions in m from the start of the road.
+     */
+    public static class Trips {
+        public final int[] startRoads;
+        public final double[] startPositions;
+        public final int[] endRoads;
+        public final double[] endPositions;
+        private int count;
+
+        Trips(int count) {
+            this.count = count;
+            startRoads = new int[count];
+            startPositions = new double[count];
+            endRoads = new int[count];
+            endPositions = new double[count];
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.shared.Config;
+
+/**
+ * Number of cars and their average speed per tile of a grid over the bounds of the road network, as a pyramid
+ * of zoom levels: level 0 is one tile for the whole map, every further level splits each tile into 2 x 2 tiles,
+ * down to {@link Config#PARTICIPANTS_DENSITY_LEVELS} - 1. Renderers of large fleets can draw the tiles instead
+ * of the cars, so an overview costs O(tiles) instead of O(cars).
+ * <p>
+ * At the end of every tick a new pyramid is built: the finest level is filled in one pass over the cars and the
+ * coarser levels are summed up from their children. Readers get the pyramid of the last completed tick, which is
+ * never written again, so a slow reader can not see a pyramid half way through an update.
+ */
+public class DensityTiles {
+    private static final int LEVELS = Config.PARTICIPANTS_DENSITY_LEVELS;
+
+    private final Simulation simulation;
+    private final Navigation navigation;
+    private volatile Pyramid current;
+
+    public DensityTiles(Simulation simulation, Navigation navigation) {
+        this.simulation = simulation;
+        this.navigation = navigation;
+        simulation.addTickListener(this::update);
+    }
+
+    /**
+     * @return the tiles of the given level, null before the first tick
+     */
+    public Level getLevel(int zoom) {
+        Pyramid pyramid = current;
+        if (pyramid == null) return null;
+        zoom = Math.max(0, Math.min(LEVELS - 1, zoom));
+        int size = 1 << zoom;
+        int[] count = pyramid.count[zoom].clone();
+        double[] averageSpeed = new double[count.length];
+        for (int i = 0; i < count.length; i++) {
+            if (count[i] > 0) averageSpeed[i] = pyramid.speedSum[zoom][i] / count[i];
+        }
+        return new Level(zoom, size, pyramid.tick, count, averageSpeed);
+    }
+
+    /**
+     * Called at the end of a tick while the simulation is locked.
+     */
+    private void update() {
+        RoadNetwork roadNetwork = navigation.getRoadNetwork();
+        RoadGraph graph = roadNetwork.graph;
+        double minX = roadNetwork.getMinX();
+        double minY = roadNetwork.getMinY();
+        double spanX = roadNetwork.getMaxX() > minX ? roadNetwork.getMaxX() - minX : 1;
+        double spanY = roadNetwork.getMaxY() > minY ? roadNetwork.getMaxY() - minY : 1;
+
+        Pyramid previous = current;
+        Pyramid pyramid = new Pyramid(previous == null ? 1 : previous.tick + 1);
+        int finest = LEVELS - 1;
+        int size = 1 << finest;
+        int[] count = pyramid.count[finest];
+        double[] speedSum = pyramid.speedSum[finest];
+        simulation.forEachParticipant((id, road, roadPosition, velocity, acceleration, hasCallback) -> {
+            int start = graph.getStart(road);
+            int end = graph.getEnd(road);
+            double t = roadPosition / graph.getLength(road);
+            double x = (graph.getX(start) + (graph.getX(end) - graph.getX(start)) * t - minX) / spanX;
+            double y = (graph.getY(start) + (graph.getY(end) - graph.getY(start)) * t - minY) / spanY;
+            int tile = tile(y, size) * size + tile(x, size);
+            count[tile]++;
+            speedSum[tile] += velocity;
+        });
+        for (int level = finest - 1; level >= 0; level--) pyramid.sumUp(level);
+        current = pyramid;
+    }
+
+    private static int tile(double value, int size) {
+        return Math.max(0, Math.min(size - 1, (int) (value * size)));
+    }
+
+    private static class Pyramid {
+        private final int[][] count = new int[LEVELS][];
+        private final double[][] speedSum = new double[LEVELS][];
+        private final long tick;
+
+        Pyramid(long tick) {
+            this.tick = tick;
+            for (int level = 0; level < LEVELS; level++) {
+                count[level] = new int[1 << (2 * level)];
+                speedSum[level] = new double[count[level].length];
+            }
+        }
+
+        /**
+         * Fills a level from the 2 x 2 children of every tile on the next finer level.
+         */
+        void sumUp(int level) {
+            int size = 1 << level;
+            int childSize = size * 2;
+            int[] childCount = count[level + 1];
+            double[] childSpeed = speedSum[level + 1];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    int a = 2 * y * childSize + 2 * x;
+                    int b = a + childSize;
+                    count[level][y * size + x] = childCount[a] + childCount[a + 1] + childCount[b] + childCount[b + 1];
+                    speedSum[level][y * size + x] = childSpeed[a] + childSpeed[a + 1] + childSpeed[b] + childSpeed[b + 1];
+                }
+            }
+        }
+    }
+
+    /**
+     * The tiles of one zoom level in row major order, row 0 at the minimum y coordinate.
+     */
+    public static class Level {
+        private final int zoom;
+        private final int size;
+        private final long tick;
+        private final int[] count;
+        private final double[] averageSpeed;
+
+        Level(int zoom, int size, long tick, int[] count, double[] averageSpeed) {
+            this.zoom = zoom;
+            this.size = size;
+            this.tick = tick;
+            this.count = count;
+            this.averageSpeed = averageSpeed;
+        }
+
+        public int getZoom() {
+            return zoom;
+        }
+
+        /**
+         * tiles per axis
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * number of ticks the tiles were computed in so far, to tell updated tiles apart
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        public int[] getCount() {
+            return count;
+        }
+
+        /**
+         * average speed of the cars in m/s, 0 for empty tiles
+         */
+        public double[] getAverageSpeed() {
+            return averageSpeed;
+        }
+    }
+}
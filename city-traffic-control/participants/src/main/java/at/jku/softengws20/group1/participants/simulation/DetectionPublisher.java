@@ -0,0 +1,187 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.shared.impl.model.CarEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Sends the car events of the simulation to the detection system on a background thread, so a slow detection
+ * system neither holds up the tick nor the {@link Simulation} lock.
+ * <p>
+ * The events of a tick are copied into a back buffer that is swapped with the front buffer by the publisher.
+ * If the publisher falls behind, the ticks waiting in the back buffer are not sent one by one: only their
+ * net effect is sent (see {@link CarEvents#coalesce()}), so a publish always brings detection to the newest
+ * state and its size is bounded by the number of cars. Events of a failed publish are sent again with the next one.
+ */
+public class DetectionPublisher implements Consumer<CarEvents> {
+    private static final long RETRY_DELAY = 1000;
+
+    private final Consumer<CarEvent[]> sender;
+    private final Navigation navigation;
+    private final Object lock = new Object();
+    private CarEvents back = new CarEvents();
+    private CarEvents front = new CarEvents();
+    /**
+     * ticks with events in the back buffer
+     */
+    private int pendingTicks = 0;
+    /**
+     * time the oldest tick in the back buffer was handed over
+     */
+    private long pendingSince;
+
+    //metrics, only written by the publisher thread
+    private volatile long published = 0;
+    private volatile long skipped = 0;
+    private volatile long failed = 0;
+    private volatile long lastLag = 0;
+    private volatile long maxLag = 0;
+
+    /**
+     * @param sender sends the events to the detection system, e.g. {@code detectionService::setCarEvents}
+     */
+    public DetectionPublisher(Consumer<CarEvent[]> sender, Navigation navigation) {
+        this.sender = sender;
+        this.navigation = navigation;
+        Thread thread = new Thread(this::publishLoop, "detection-publisher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Copies the events of a tick into the back buffer and returns at once.
+     */
+    @Override
+    public void accept(CarEvents events) {
+        if (events.isEmpty()) return;
+        synchronized (lock) {
+            if (pendingTicks == 0) pendingSince = System.nanoTime();
+            back.addAll(events);
+            pendingTicks++;
+            lock.notify();
+        }
+    }
+
+    private void publishLoop() {
+        while (true) {
+            int ticks;
+            long since;
+            synchronized (lock) {
+                while (pendingTicks == 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                CarEvents tmp = front;
+                front = back;
+                back = tmp;
+                ticks = pendingTicks;
+                since = pendingSince;
+                pendingTicks = 0;
+            }
+            if (ticks > 1) {
+                front.coalesce();
+                skipped += ticks - 1;
+            }
+            try {
+                if (!front.isEmpty()) sender.accept(front.toArray(navigation.getRoadNetwork().roads));
+                published++;
+                lastLag = (System.nanoTime() - since) / 1000000;
+                if (lastLag > maxLag) maxLag = lastLag;
+                front.clear();
+            } catch (RuntimeException e) {
+                failed++;
+                requeue(since);
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the events of a failed publish in front of the events that arrived in the meantime.
+     */
+    private void requeue(long since) {
+        synchronized (lock) {
+            front.addAll(back);
+            CarEvents tmp = back;
+            back = front;
+            front = tmp;
+            front.clear();
+            //the failed events count as one tick, the ticks merged into them are already counted as skipped
+            pendingTicks++;
+            pendingSince = since;
+        }
+    }
+
+    public Metrics getMetrics() {
+        int pending;
+        synchronized (lock) {
+            pending = pendingTicks;
+        }
+        return new Metrics(published, skipped, failed, pending, lastLag, maxLag);
+    }
+
+    public static class Metrics {
+        private final long published;
+        private final long skipped;
+        private final long failed;
+        private final int pendingTicks;
+        private final long lastLag;
+        private final long maxLag;
+
+        private Metrics(long published, long skipped, long failed, int pendingTicks, long lastLag, long maxLag) {
+            this.published = published;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.pendingTicks = pendingTicks;
+            this.lastLag = lastLag;
+            this.maxLag = maxLag;
+        }
+
+        /**
+         * requests sent to the detection system
+         */
+        public long getPublished() {
+            return published;
+        }
+
+        /**
+         * ticks that were not sent on their own but merged into a later publish
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * publishes that failed and were retried
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * ticks waiting for the publisher
+         */
+        public int getPendingTicks() {
+            return pendingTicks;
+        }
+
+        /**
+         * ms from handing over the oldest tick of the last publish until it was sent
+         */
+        public long getLastLag() {
+            return lastLag;
+        }
+
+        public long getMaxLag() {
+            return maxLag;
+        }
+    }
+}
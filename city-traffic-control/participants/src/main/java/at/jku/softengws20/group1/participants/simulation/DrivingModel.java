@@ -0,0 +1,64 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+/**
+ * Car following model shared by all simulation engines. Works on primitives only, so the array engine
+ * can use it without materializing participant objects.
+ */
+final class DrivingModel {
+    static final double MIN_SAFETY_SEC = 2;
+    static final double BUFFER_SEC = 10;
+    static final double MIN_ACCELERATION = -9.8;
+    static final double MAX_ACCELERATION = 4;
+    static final double NOT_ACCELERATE_END_BUFFER = 100;
+
+    private DrivingModel() {
+    }
+
+    /**
+     * @param velocity     current velocity of the car
+     * @param roadPosition position of the car on its road
+     * @param roadLength   length of the road the car is on
+     * @param speedLimit   speed limit of the road the car is on
+     * @param green        whether the traffic light at the end of the road is green
+     * @param hasNext      whether there is a car ahead
+     * @param nextPosition position of the car ahead, relative to the start of the current road
+     * @param nextVelocity velocity of the car ahead
+     * @return the new acceleration of the car
+     */
+    static double acceleration(double velocity, double roadPosition, double roadLength, double speedLimit, boolean green,
+                               boolean hasNext, double nextPosition, double nextVelocity) {
+        double acceleration;
+        double breakPath = velocity * velocity / (-MIN_ACCELERATION * 2);
+
+        //enforce distance to next participant
+        if (hasNext) {
+            double safetyDist = MIN_SAFETY_SEC * velocity + 4;
+            double nextPosAfterBreak = nextPosition + nextVelocity * nextVelocity / (-MIN_ACCELERATION * 2);
+            double posAfterBreak = roadPosition + breakPath;
+            if (posAfterBreak + safetyDist > nextPosAfterBreak) {
+                acceleration = MIN_ACCELERATION * (1 - (nextPosAfterBreak - posAfterBreak) / safetyDist);
+            } else
+                acceleration = Math.min(MAX_ACCELERATION, MAX_ACCELERATION * (nextPosAfterBreak - posAfterBreak - safetyDist) / (50));
+        } else if (roadPosition > roadLength - NOT_ACCELERATE_END_BUFFER)
+            acceleration = (0.5 - velocity / speedLimit) * MAX_ACCELERATION; //accelerate slower when at end of road
+        else acceleration = MAX_ACCELERATION;
+
+        //enforce speed limit
+        double velDiff = velocity - speedLimit;
+        if (velDiff > 0 && velocity > speedLimit * 0.5)
+            acceleration = Math.min(acceleration, -velDiff / BUFFER_SEC); //geschwindigkeit an das maximum anpassen
+
+        //enforce traffic lights
+        if (!green) {
+            double distToEnd = roadLength - roadPosition;
+            if (distToEnd < 2 * breakPath || distToEnd < 10) {
+                acceleration = Math.min(acceleration, -(velocity * velocity) / (2 * distToEnd) - 1);
+            }
+        }
+
+        //enforce physical limits
+        if (acceleration < MIN_ACCELERATION) acceleration = MIN_ACCELERATION;
+        else if (acceleration > MAX_ACCELERATION) acceleration = MAX_ACCELERATION;
+        return acceleration;
+    }
+}
@@ -0,0 +1,139 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.navigation.RoutingMode;
+import at.jku.softengws20.group1.participants.roadNetwork.Crossing;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.shared.detection.CarEventType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the simulation without Spring, REST calls or sleeping between the ticks, e.g. for benchmarks.
+ * The map is read directly from a map JSON file and all traffic lights are green.
+ * Runs with the same arguments (including seed and thread count) produce the same checksum.
+ * <p>
+ * Arguments: {@code <map.json> [seed] [ticks] [threads] [cars] [OBJECT|ARRAY|REGION] [routing mode] [snapshot]}
+ * <p>
+ * If the snapshot file exists, the run starts from its state, otherwise the state after the run is saved to it.
+ * So a first run warms up the city and later runs start from the same warm state.
+ */
+public class HeadlessSimulation {
+    private final Simulation simulation;
+    private final ForkJoinPool pool;
+    /**
+     * participant ids are unique within the JVM, the checksum counts them from the first one of this run
+     */
+    private final int firstId;
+    private long ticks = 0;
+    private long carUpdates = 0;
+    private long roadChanges = 0;
+    private long arrived = 0;
+
+    public HeadlessSimulation(RoadNetwork roadNetwork, long seed, int threads, int cars,
+                              SimulationEngineType engineType, RoutingMode routingMode) {
+        for (Crossing crossing : roadNetwork.crossings) roadNetwork.setGreenRoads(crossing, crossing.getIncomingRoads());
+        Navigation navigation = new Navigation(routingMode);
+        navigation.setRoadNetwork(roadNetwork);
+        SimulationEngine engine = engineType == SimulationEngineType.REGION ?
+                new RegionSimulationEngine(navigation, threads) : engineType.create(navigation);
+        simulation = new Simulation(navigation, engine, new Random(seed), this::count);
+        simulation.setTargetCount(cars);
+        pool = new ForkJoinPool(threads);
+        firstId = Participant.nextId();
+    }
+
+    public static RoadNetwork loadMap(File file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        try (JsonParser parser = mapper.createParser(file)) {
+            return RoadNetwork.create(parser.readValueAs(at.jku.softengws20.group1.shared.impl.model.RoadNetwork.class));
+        }
+    }
+
+    /**
+     * Runs the ticks in the own pool, so the parallel parts of the engines use the configured number of threads.
+     */
+    public void run(int count) throws InterruptedException, ExecutionException {
+        pool.submit(() -> {
+            for (int i = 0; i < count; i++) {
+                carUpdates += simulation.getParticipantCount();
+                simulation.tick();
+                ticks++;
+            }
+        }).get();
+    }
+
+    private void count(CarEvents events) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.getType(i) == CarEventType.ARRIVE) arrived++;
+            else if (events.getType(i) == CarEventType.ENTER) roadChanges++;
+        }
+    }
+
+    /**
+     * @return a hash over the id, road, position and velocity of all remaining participants, equal for runs
+     * with the same arguments within one JVM
+     */
+    public long checksum() {
+        Participant[] participants = simulation.getParticipants();
+        Arrays.sort(participants, Comparator.comparingInt(Participant::getId));
+        long hash = 17;
+        for (Participant participant : participants) {
+            hash = hash * 31 + participant.getId() - firstId;
+            hash = hash * 31 + participant.getPosition().getRoad().getIndex();
+            hash = hash * 31 + Double.doubleToLongBits(participant.getPosition().getRoadPosition());
+            hash = hash * 31 + Double.doubleToLongBits(participant.getVelocity());
+        }
+        return hash;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+        simulation.shutdown();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("usage: HeadlessSimulation <map.json> [seed] [ticks] [threads] [cars] [engine] [routing mode] [snapshot]");
+            return;
+        }
+        RoadNetwork roadNetwork = loadMap(new File(args[0]));
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int tickCount = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int cars = args.length > 4 ? Integer.parseInt(args[4]) : 10000;
+        SimulationEngineType engineType = args.length > 5 ? SimulationEngineType.valueOf(args[5]) : SimulationEngineType.OBJECT;
+        RoutingMode routingMode = args.length > 6 ? RoutingMode.valueOf(args[6]) : RoutingMode.DIJKSTRA;
+        Path snapshot = args.length > 7 ? Path.of(args[7]) : null;
+
+        HeadlessSimulation headless = new HeadlessSimulation(roadNetwork, seed, threads, cars, engineType, routingMode);
+        if (snapshot != null && Files.exists(snapshot)) {
+            long ts = System.nanoTime();
+            int count = headless.simulation.restoreSnapshot(snapshot);
+            System.out.printf("restored %d participants in %.3f s%n", count, (System.nanoTime() - ts) / 1000000000D);
+        }
+        long ts = System.nanoTime();
+        headless.run(tickCount);
+        double seconds = (System.nanoTime() - ts) / 1000000000D;
+        headless.shutdown();
+        if (snapshot != null && !Files.exists(snapshot)) {
+            SimulationSnapshot.Summary summary = headless.simulation.saveSnapshot(snapshot);
+            System.out.printf("saved %d participants (%d bytes) in %d ms%n", summary.getParticipants(), summary.getBytes(), summary.getDuration());
+        }
+
+        System.out.printf("%d ticks in %.3f s (%.1f ticks/s, %.0f car updates/s)%n",
+                headless.ticks, seconds, headless.ticks / seconds, headless.carUpdates / seconds);
+        System.out.printf("%d roads entered, %d arrived, %d remaining, checksum %016x%n",
+                headless.roadChanges, headless.arrived, headless.simulation.getParticipantCount(), headless.checksum());
+    }
+}
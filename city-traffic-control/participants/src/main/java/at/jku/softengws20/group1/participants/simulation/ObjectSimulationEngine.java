@@ -0,0 +1,90 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps one {@link Participant} object per car. The cars on each road are tracked by an {@link OccupancyIndex}
+ * that is only updated for cars that changed their road. The index is updated in the order the cars were added,
+ * so a run does not depend on the scheduling of the parallel parts.
+ */
+public class ObjectSimulationEngine implements SimulationEngine {
+    private final Navigation navigation;
+    private ArrayList<Participant> participants = new ArrayList<>();
+    private OccupancyIndex occupancy;
+
+    public ObjectSimulationEngine(Navigation navigation) {
+        this.navigation = navigation;
+    }
+
+    @Override
+    public void addParticipant(Participant participant) {
+        participants.add(participant);
+        getOccupancy().enter(participant);
+    }
+
+    private OccupancyIndex getOccupancy() {
+        if (occupancy == null) occupancy = new OccupancyIndex(navigation.getRoadNetwork().roads.length);
+        return occupancy;
+    }
+
+    @Override
+    public int getParticipantCount() {
+        return participants.size();
+    }
+
+    @Override
+    public Participant[] getParticipants() {
+        return participants.toArray(Participant[]::new);
+    }
+
+    @Override
+    public void forEachParticipant(ParticipantVisitor visitor) {
+        for (Participant participant : participants) {
+            visitor.visit(participant.getId(), participant.getPosition().getRoad().getIndex(), participant.getPosition().getRoadPosition(),
+                    participant.getVelocity(), participant.getAcceleration(), participant.hasCallback());
+        }
+    }
+
+    @Override
+    public void tick(double elapsed, CarEvents events) {
+        OccupancyIndex occupancy = getOccupancy();
+        participants.parallelStream().forEach(participant -> participant.updateAcceleration(occupancy));
+
+        boolean[] arrived = new boolean[participants.size()];
+        IntStream.range(0, arrived.length).parallel().forEach(i -> {
+            try {
+                arrived[i] = participants.get(i).updatePosition(elapsed);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+
+        ArrayList<Participant> remaining = new ArrayList<>(participants.size());
+        for (int i = 0; i < arrived.length; i++) {
+            Participant participant = participants.get(i);
+            if (arrived[i]) {
+                events.arrive(participant.getId(), participant.occupiedRoad.getIndex());
+                occupancy.leave(participant);
+                participant.getPosition().setRoad(null);
+                continue;
+            }
+            Road road = participant.getPosition().getRoad();
+            if (road != participant.occupiedRoad) {
+                events.move(participant.getId(), participant.occupiedRoad.getIndex(), road.getIndex());
+                occupancy.move(participant);
+            }
+            remaining.add(participant);
+        }
+        occupancy.restoreOrder();
+        participants = remaining;
+    }
+
+    @Override
+    public void shutdown() {
+        //the parallel streams run in the pool of the caller, nothing to release
+    }
+}
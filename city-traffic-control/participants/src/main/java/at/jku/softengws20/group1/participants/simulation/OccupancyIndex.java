@@ -0,0 +1,93 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Incrementally maintained index of the participants on each road. Only participants that changed
+ * their road have to be moved, and only roads with participants (active roads) are visited each tick.
+ * Not thread safe: modifications have to happen outside the parallel parts of a tick.
+ */
+final class OccupancyIndex {
+    private final RoadOccupancy[] occupancies;
+    private final int[] activeRoads;
+    private final int[] activePosition;
+    private int activeCount = 0;
+
+    OccupancyIndex(int roadCount) {
+        this(new RoadOccupancy[roadCount]);
+    }
+
+    /**
+     * Creates an index that shares the participants per road with other indices, so {@link #getFirst(Road)} sees
+     * all roads. Each index must only modify the roads it owns.
+     */
+    OccupancyIndex(RoadOccupancy[] occupancies) {
+        this.occupancies = occupancies;
+        activeRoads = new int[occupancies.length];
+        activePosition = new int[occupancies.length];
+        Arrays.fill(activePosition, -1);
+    }
+
+    /**
+     * @return the participant ahead on the same road, or null if the participant is the first one
+     */
+    Participant getNext(Participant participant) {
+        return occupancies[participant.occupiedRoad.getIndex()].getNext(participant);
+    }
+
+    /**
+     * @return the participant closest to the start of the given road, or null if the road is empty
+     */
+    Participant getFirst(Road road) {
+        RoadOccupancy occupancy = occupancies[road.getIndex()];
+        return occupancy == null ? null : occupancy.getFirst();
+    }
+
+    void enter(Participant participant) {
+        Road road = participant.getPosition().getRoad();
+        int index = road.getIndex();
+        if (occupancies[index] == null) occupancies[index] = new RoadOccupancy();
+        occupancies[index].insert(participant);
+        participant.occupiedRoad = road;
+        if (activePosition[index] < 0) {
+            activePosition[index] = activeCount;
+            activeRoads[activeCount++] = index;
+        }
+    }
+
+    void leave(Participant participant) {
+        int index = participant.occupiedRoad.getIndex();
+        occupancies[index].remove(participant);
+        participant.occupiedRoad = null;
+        if (occupancies[index].isEmpty()) {
+            int position = activePosition[index];
+            int last = activeRoads[--activeCount];
+            activeRoads[position] = last;
+            activePosition[last] = position;
+            activePosition[index] = -1;
+        }
+    }
+
+    /**
+     * Moves a participant whose road changed since it was last indexed.
+     */
+    void move(Participant participant) {
+        leave(participant);
+        enter(participant);
+    }
+
+    void restoreOrder() {
+        restoreOrder(true);
+    }
+
+    /**
+     * @param parallel false if the caller already runs in parallel to other indices
+     */
+    void restoreOrder(boolean parallel) {
+        if (parallel) IntStream.range(0, activeCount).parallel().forEach(i -> occupancies[activeRoads[i]].restoreOrder());
+        else for (int i = 0; i < activeCount; i++) occupancies[activeRoads[i]].restoreOrder();
+    }
+}
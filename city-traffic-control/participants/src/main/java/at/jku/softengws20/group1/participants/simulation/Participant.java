@@ -4,10 +4,6 @@ import at.jku.softengws20.group1.participants.navigation.Navigation;
 import at.jku.softengws20.group1.participants.roadNetwork.Position;
 import at.jku.softengws20.group1.participants.roadNetwork.Road;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class Participant {
@@ -16,13 +12,20 @@ public class Participant {
     private final Position destination;
     private final Navigation navigation;
     private final Position position;
-    private Road nextRoad;
+    /**
+     * indices of the roads to drive, starting with the road the route was planned on
+     */
+    private int[] route;
+    private int routeIndex;
+    private int routeVersion;
     private double velocity = 0;
     private double acceleration = 0;
     private Participant nextParticipant;
     private double nextParticipantPos;
     private Road nextParticipantRoad;
     private final String callback;
+    Road occupiedRoad;
+    int occupancySlot;
 
     public Participant(Position position, Position destination, Navigation navigation, String callback) {
         id = sequence.getAndIncrement();
@@ -32,6 +35,39 @@ public class Participant {
         this.callback = callback;
     }
 
+    /**
+     * Creates a participant with a given state, either restored from a {@link SimulationSnapshot} or, without
+     * navigation, as read only view of a participant whose state is kept elsewhere (e.g. by the {@link ArraySimulationEngine}).
+     * @param route planned route, null to plan it on first use
+     */
+    Participant(int id, Position position, Position destination, Navigation navigation, double velocity,
+                double acceleration, String callback, int[] route, int routeIndex) {
+        this.id = id;
+        this.position = position;
+        this.destination = destination;
+        this.navigation = navigation;
+        this.velocity = velocity;
+        this.acceleration = acceleration;
+        this.callback = callback;
+        this.route = route;
+        this.routeIndex = routeIndex;
+        if (navigation != null) routeVersion = navigation.getRouteVersion();
+    }
+
+    /**
+     * Makes sure participants created later get an id greater than the given one, e.g. after restoring a snapshot.
+     */
+    static void reserveId(int id) {
+        sequence.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /**
+     * @return the id the next created participant gets
+     */
+    static int nextId() {
+        return sequence.get();
+    }
+
     public int getId() {
         return id;
     }
@@ -54,56 +90,66 @@ public class Participant {
 
     public boolean hasCallback() {return callback != null;}
 
-    public void updateAcceleration() {
-        nextParticipant = position.getRoad().getNext(this);
-        if (nextParticipant == null) {
-            Road nextRoad = navigation.getNext(position.getRoad().getEnd(), destination.getRoad());
-            if (nextRoad != null) nextParticipant = nextRoad.getNext(this);
+    String getCallback() {
+        return callback;
+    }
+
+    /**
+     * @return the planned route, null if it was not planned yet
+     */
+    int[] getRoute() {
+        return route;
+    }
+
+    int getRouteIndex() {
+        return routeIndex;
+    }
+
+    int getRouteVersion() {
+        return routeVersion;
+    }
+
+    /**
+     * Plans the route on first use and plans it again if one of the remaining roads was closed or got much slower.
+     */
+    private void updateRoute() {
+        int version = navigation.getRouteVersion();
+        if (route != null && version == routeVersion) return;
+        if (route == null || !navigation.isRouteValid(route, routeIndex + 1, routeVersion)) {
+            route = navigation.getRoute(position.getRoad().getIndex(), destination.getRoad().getIndex());
+            routeIndex = 0;
         }
-        final double minSafetySec = 2;
-        final double bufferSec = 10;
-        final double minAcceleration = -9.8;
-        final double maxAcceleration = 4;
-        final double notAccelerateEndBuffer = 100;
+        routeVersion = version;
+    }
 
-        double breakPath = velocity * velocity / (-minAcceleration * 2);
+    /**
+     * @return the road after the current one, or null if the current road is the last one
+     */
+    private Road getNextRoad() {
+        if (routeIndex + 1 >= route.length) return null;
+        return navigation.getRoadNetwork().roads[route[routeIndex + 1]];
+    }
 
+    void updateAcceleration(OccupancyIndex occupancy) {
+        updateRoute();
+        nextParticipant = occupancy.getNext(this);
+        if (nextParticipant == null) {
+            Road nextRoad = getNextRoad();
+            if (nextRoad != null) nextParticipant = occupancy.getFirst(nextRoad);
+        }
         //enforce distance to next participant
+        double nextPosition = 0;
+        double nextVelocity = 0;
         if (nextParticipant != null) {
             nextParticipantPos = nextParticipant.position.getRoadPosition();
             nextParticipantRoad = nextParticipant.position.getRoad();
             double otherRoadPosCompensation = nextParticipantRoad != position.getRoad() ? position.getRoad().getLength() : 0;
-            double safetyDist = minSafetySec * velocity + 4;
-            double nextPosAfterBreak = otherRoadPosCompensation + nextParticipantPos + nextParticipant.velocity * nextParticipant.velocity / (-minAcceleration * 2);
-            double posAfterBreak = position.getRoadPosition() + breakPath;
-            if (posAfterBreak + safetyDist > nextPosAfterBreak) {
-                acceleration = minAcceleration * (1 - (nextPosAfterBreak - posAfterBreak) / safetyDist);
-            } else
-                acceleration = Math.min(maxAcceleration, maxAcceleration * (nextPosAfterBreak - posAfterBreak - safetyDist) / (50));
-        } else if (position.getRoadPosition() > position.getRoad().getLength() - notAccelerateEndBuffer)
-            acceleration = (0.5 - velocity / position.getRoad().getSpeedLimit()) * maxAcceleration; //accelerate slower when at end of road
-        else acceleration = maxAcceleration;
-
-        //enforce speed limit
-        double velLimit = position.getRoad().getSpeedLimit();
-        double velDiff = velocity - velLimit;
-        if (velDiff > 0 && velocity > velLimit * 0.5)
-            acceleration = Math.min(acceleration, -velDiff / bufferSec); //geschwindigkeit an das maximum anpassen
-
-        //enforce traffic lights
-        if (!position.getRoad().getEnd().getGreenRoads().contains(position.getRoad())) {
-            double distToEnd = position.getRoad().getLength() - position.getRoadPosition();
-            if (distToEnd < 2 * breakPath || distToEnd < 10) {
-                acceleration = Math.min(acceleration, -(velocity * velocity) / (2 * distToEnd) - 1);
-            }
-        }
-
-        //enforce physical limits
-        if (acceleration < minAcceleration) acceleration = minAcceleration;
-        else if (acceleration > maxAcceleration) acceleration = maxAcceleration;
-        if (Double.isNaN(acceleration) || Double.isNaN(velocity)) {
-            int x = 0;
+            nextPosition = otherRoadPosCompensation + nextParticipantPos;
+            nextVelocity = nextParticipant.velocity;
         }
+        acceleration = DrivingModel.acceleration(velocity, position.getRoadPosition(), position.getRoad().getLength(),
+                position.getRoad().getSpeedLimit(), position.getRoad().isGreen(),
+                nextParticipant != null, nextPosition, nextVelocity);
     }
 
     public boolean updatePosition(double elapsed) {
@@ -117,18 +163,14 @@ public class Participant {
         if (position.getRoad().getId().equals(destination.getRoad().getId())) {
             double targetPos = position.getRoad() == destination.getRoad() ? destination.getRoadPosition() : position.getRoad().getLength() - destination.getRoadPosition();
             if (newPos >= targetPos) {
-                if (callback != null) {
-                    var client = HttpClient.newHttpClient();
-                    var request = HttpRequest.newBuilder(URI.create(callback)).build();
-                    client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
-                }
+                if (callback != null) ArrivalDispatcher.getInstance().offer(callback);
                 //System.out.println("Participant " + id + " arrived");
                 return true;
             }
         }
         int cnt = 0;
         while (newPos > position.getRoad().getLength()) {
-            if (!position.getRoad().getEnd().getGreenRoads().contains(position.getRoad())) {
+            if (!position.getRoad().isGreen()) {
                 int deb = 0;
             }
             if (cnt++ > 100) {
@@ -137,12 +179,12 @@ public class Participant {
             }
             if (position.getRoad() == destination.getRoad()) return true;
             newPos -= position.getRoad().getLength();
-            Road nextRoad = navigation.getNext(position.getRoad().getEnd(), destination.getRoad());
+            Road nextRoad = getNextRoad();
             if (nextRoad == null) return true; //destination not reachable
+            routeIndex++;
             position.setRoad(nextRoad);
         }
         position.setRoadPosition(newPos);
-        position.getRoad().addParticipant(this);
         velocity += elapsed * acceleration;
         if (velocity < 0) velocity = 0;
         return false;
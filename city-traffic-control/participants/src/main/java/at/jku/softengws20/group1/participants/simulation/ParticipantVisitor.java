@@ -0,0 +1,12 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+/**
+ * Receives the state of a participant without a {@link Participant} object being created for it.
+ */
+@FunctionalInterface
+public interface ParticipantVisitor {
+    /**
+     * @param road index of the road the participant is on
+     */
+    void visit(int id, int road, double roadPosition, double velocity, double acceleration, boolean hasCallback);
+}
@@ -0,0 +1,50 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Splits the crossings into geographic regions of about the same size by recursive coordinate bisection:
+ * each step splits the crossings at the median of the longer side of their bounding box.
+ */
+final class RegionPartition {
+    private RegionPartition() {
+    }
+
+    /**
+     * @return the region of every crossing, from 0 to {@code regions - 1}
+     */
+    static int[] partition(RoadGraph graph, int regions) {
+        Integer[] crossings = new Integer[graph.getCrossingCount()];
+        for (int i = 0; i < crossings.length; i++) crossings[i] = i;
+        int[] regionOf = new int[crossings.length];
+        bisect(graph, crossings, 0, crossings.length, 0, Math.max(1, Math.min(regions, crossings.length)), regionOf);
+        return regionOf;
+    }
+
+    private static void bisect(RoadGraph graph, Integer[] crossings, int from, int to, int firstRegion, int regions,
+                               int[] regionOf) {
+        if (regions == 1) {
+            for (int i = from; i < to; i++) regionOf[crossings[i]] = firstRegion;
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            minX = Math.min(minX, graph.getX(crossings[i]));
+            maxX = Math.max(maxX, graph.getX(crossings[i]));
+            minY = Math.min(minY, graph.getY(crossings[i]));
+            maxY = Math.max(maxY, graph.getY(crossings[i]));
+        }
+        Comparator<Integer> order = maxX - minX >= maxY - minY
+                ? Comparator.comparingDouble(graph::getX) : Comparator.comparingDouble(graph::getY);
+        Arrays.sort(crossings, from, to, order);
+        //odd region counts are split proportionally
+        int left = regions / 2;
+        int split = from + (int) ((long) (to - from) * left / regions);
+        bisect(graph, crossings, from, split, firstRegion, left, regionOf);
+        bisect(graph, crossings, split, to, firstRegion + left, regions - left, regionOf);
+    }
+}
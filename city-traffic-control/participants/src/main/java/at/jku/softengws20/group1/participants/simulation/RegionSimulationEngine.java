@@ -0,0 +1,213 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+import at.jku.softengws20.group1.shared.Config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits the road network into geographic regions (see {@link RegionPartition}) and simulates each region on its
+ * own worker thread with its own participants. A road belongs to the region of its start crossing.
+ * <p>
+ * A tick has three phases separated by barriers: all regions compute accelerations (reading the first cars of
+ * neighbouring regions), then move their cars and hand cars that entered another region to that region's queue,
+ * and finally take over the cars from their queue.
+ */
+public class RegionSimulationEngine implements SimulationEngine {
+    private final Navigation navigation;
+    private final int regionCount;
+    private Region[] regions;
+    private int[] regionOfRoad;
+    private ExecutorService workers;
+    private int participantCount = 0;
+
+    public RegionSimulationEngine(Navigation navigation) {
+        this(navigation, Config.PARTICIPANTS_REGIONS > 0 ? Config.PARTICIPANTS_REGIONS : Runtime.getRuntime().availableProcessors());
+    }
+
+    public RegionSimulationEngine(Navigation navigation, int regionCount) {
+        this.navigation = navigation;
+        this.regionCount = regionCount;
+    }
+
+    private Region[] getRegions() {
+        if (regions == null) {
+            RoadGraph graph = navigation.getRoadNetwork().graph;
+            int[] regionOfCrossing = RegionPartition.partition(graph, regionCount);
+            regionOfRoad = new int[graph.getRoadCount()];
+            for (int road = 0; road < regionOfRoad.length; road++) regionOfRoad[road] = regionOfCrossing[graph.getStart(road)];
+            RoadOccupancy[] occupancies = new RoadOccupancy[graph.getRoadCount()];
+            regions = new Region[regionCount];
+            for (int i = 0; i < regionCount; i++) regions[i] = new Region(new OccupancyIndex(occupancies));
+            AtomicInteger threadNumber = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(regionCount, runnable -> {
+                Thread thread = new Thread(runnable, "simulator-region-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return regions;
+    }
+
+    private Region getRegion(Road road) {
+        return getRegions()[regionOfRoad[road.getIndex()]];
+    }
+
+    @Override
+    public void addParticipant(Participant participant) {
+        getRegion(participant.getPosition().getRoad()).add(participant);
+        participantCount++;
+    }
+
+    @Override
+    public int getParticipantCount() {
+        return participantCount;
+    }
+
+    @Override
+    public Participant[] getParticipants() {
+        ArrayList<Participant> participants = new ArrayList<>(participantCount);
+        for (Region region : getRegions()) participants.addAll(region.participants);
+        return participants.toArray(Participant[]::new);
+    }
+
+    @Override
+    public void forEachParticipant(ParticipantVisitor visitor) {
+        for (Region region : getRegions()) {
+            for (Participant participant : region.participants) {
+                visitor.visit(participant.getId(), participant.getPosition().getRoad().getIndex(), participant.getPosition().getRoadPosition(),
+                        participant.getVelocity(), participant.getAcceleration(), participant.hasCallback());
+            }
+        }
+    }
+
+    @Override
+    public void tick(double elapsed, CarEvents events) {
+        Region[] regions = getRegions();
+        ArrayList<Callable<Void>> tasks = new ArrayList<>(regions.length);
+        for (Region region : regions) tasks.add(() -> {
+            region.updateAccelerations();
+            return null;
+        });
+        runAll(tasks);
+        tasks.clear();
+        for (Region region : regions) tasks.add(() -> {
+            region.updatePositions(elapsed);
+            return null;
+        });
+        runAll(tasks);
+        tasks.clear();
+        for (Region region : regions) tasks.add(() -> {
+            region.takeOver();
+            return null;
+        });
+        runAll(tasks);
+
+        participantCount = 0;
+        for (Region region : regions) {
+            events.addAll(region.events);
+            participantCount += region.participants.size();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (workers != null) workers.shutdown();
+    }
+
+    /**
+     * Runs the tasks on the region workers and waits for all of them.
+     */
+    private void runAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private class Region {
+        private final OccupancyIndex occupancy;
+        private ArrayList<Participant> participants = new ArrayList<>();
+        private ArrayList<Participant> next = new ArrayList<>();
+        /**
+         * cars handed over by other regions during the current tick
+         */
+        private final ConcurrentLinkedQueue<Participant> incoming = new ConcurrentLinkedQueue<>();
+        private final CarEvents events = new CarEvents();
+
+        Region(OccupancyIndex occupancy) {
+            this.occupancy = occupancy;
+        }
+
+        void add(Participant participant) {
+            participants.add(participant);
+            occupancy.enter(participant);
+        }
+
+        void updateAccelerations() {
+            for (Participant participant : participants) participant.updateAcceleration(occupancy);
+        }
+
+        void updatePositions(double elapsed) {
+            events.clear();
+            next.clear();
+            for (Participant participant : participants) {
+                boolean arrived;
+                try {
+                    arrived = participant.updatePosition(elapsed);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    arrived = false;
+                }
+                Road road = participant.getPosition().getRoad();
+                if (arrived) {
+                    events.arrive(participant.getId(), participant.occupiedRoad.getIndex());
+                    occupancy.leave(participant);
+                    participant.getPosition().setRoad(null);
+                    continue;
+                }
+                if (road == participant.occupiedRoad) next.add(participant);
+                else {
+                    events.move(participant.getId(), participant.occupiedRoad.getIndex(), road.getIndex());
+                    Region target = regions[regionOfRoad[road.getIndex()]];
+                    if (target == this) {
+                        occupancy.move(participant);
+                        next.add(participant);
+                    } else {
+                        occupancy.leave(participant);
+                        target.incoming.add(participant);
+                    }
+                }
+            }
+            ArrayList<Participant> tmp = participants;
+            participants = next;
+            next = tmp;
+        }
+
+        /**
+         * The cars are taken over ordered by id, so the result does not depend on the order the regions handed them over.
+         */
+        void takeOver() {
+            ArrayList<Participant> arrivals = new ArrayList<>();
+            for (Participant participant; (participant = incoming.poll()) != null; ) arrivals.add(participant);
+            arrivals.sort(Comparator.comparingInt(Participant::getId));
+            for (Participant participant : arrivals) add(participant);
+            occupancy.restoreOrder(false);
+        }
+    }
+}
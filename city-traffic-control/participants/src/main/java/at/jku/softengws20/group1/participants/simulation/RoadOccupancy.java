@@ -0,0 +1,104 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+/**
+ * Participants on one road, ordered by road position (lowest first).
+ * The participants are stored in a ring buffer addressed by absolute slots, so cars entering at the start
+ * and leaving at the end of the road are O(1) and the slot stored in a participant stays valid until
+ * the participant is moved within the road.
+ */
+final class RoadOccupancy {
+    private Participant[] buffer = new Participant[4];
+    private int head = 0;
+    private int tail = 0;
+
+    int size() {
+        return tail - head;
+    }
+
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+    Participant getFirst() {
+        return isEmpty() ? null : get(head);
+    }
+
+    /**
+     * @return the participant directly ahead of the given one, or null if it is the last one on the road
+     */
+    Participant getNext(Participant participant) {
+        int slot = participant.occupancySlot + 1;
+        return slot < tail ? get(slot) : null;
+    }
+
+    void insert(Participant participant) {
+        if (size() == buffer.length) grow();
+        double pos = participant.getPosition().getRoadPosition();
+        if (isEmpty() || pos <= position(head)) {
+            set(--head, participant);
+        } else if (pos >= position(tail - 1)) {
+            set(tail++, participant);
+        } else {
+            //cars enter at the start of the road, so search from there and shift the front part
+            int slot = head;
+            while (position(slot) < pos) slot++;
+            for (int i = head; i < slot; i++) set(i - 1, get(i));
+            head--;
+            set(slot - 1, participant);
+        }
+    }
+
+    void remove(Participant participant) {
+        int slot = participant.occupancySlot;
+        if (slot - head < tail - 1 - slot) {
+            for (int i = slot; i > head; i--) set(i, get(i - 1));
+            buffer[head++ & mask()] = null;
+        } else {
+            for (int i = slot; i < tail - 1; i++) set(i, get(i + 1));
+            buffer[--tail & mask()] = null;
+        }
+        if (isEmpty()) head = tail = 0;
+    }
+
+    /**
+     * Restores the order after the participants moved. Participants hardly ever overtake each other,
+     * so this insertion sort is linear in the number of participants on the road.
+     */
+    void restoreOrder() {
+        for (int i = head + 1; i < tail; i++) {
+            Participant participant = get(i);
+            double pos = participant.getPosition().getRoadPosition();
+            int j = i - 1;
+            if (position(j) <= pos) continue;
+            while (j >= head && position(j) > pos) {
+                set(j + 1, get(j));
+                j--;
+            }
+            set(j + 1, participant);
+        }
+    }
+
+    private double position(int slot) {
+        return get(slot).getPosition().getRoadPosition();
+    }
+
+    private Participant get(int slot) {
+        return buffer[slot & mask()];
+    }
+
+    private void set(int slot, Participant participant) {
+        buffer[slot & mask()] = participant;
+        participant.occupancySlot = slot;
+    }
+
+    private int mask() {
+        return buffer.length - 1;
+    }
+
+    private void grow() {
+        Participant[] old = buffer;
+        int oldMask = mask();
+        buffer = new Participant[old.length * 2];
+        for (int i = head; i < tail; i++) buffer[i & mask()] = old[i & oldMask];
+    }
+}
@@ -5,105 +5,210 @@ import at.jku.softengws20.group1.participants.restservice.ParticipantsDetectionS
 import at.jku.softengws20.group1.participants.roadNetwork.Position;
 import at.jku.softengws20.group1.participants.roadNetwork.Road;
 import at.jku.softengws20.group1.shared.Config;
-import at.jku.softengws20.group1.shared.impl.model.CarPosition;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class Simulation implements Runnable {
     private static final double TIME_FACTOR = Config.REAL_TIME_FACTOR;
     private static final double MAX_COUNT_PER_TICK = 10000;
     private final Navigation navigation;
-    private final HashSet<Participant> participants = new HashSet<>();
-    private final ParticipantsDetectionSystemService detectionService = new ParticipantsDetectionSystemService();
-    private Random random = new Random();
+    private final SimulationEngine engine;
+    private final Consumer<CarEvents> eventConsumer;
+    /**
+     * road changes since the last tick was published, including the cars added in between
+     */
+    private final CarEvents events = new CarEvents();
+    private final List<Runnable> tickListeners = new CopyOnWriteArrayList<>();
+    /**
+     * batches of participants that start with the next tick
+     */
+    private final ConcurrentLinkedQueue<List<Participant>> pendingBatches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Random random;
+    private DemandModel demandModel;
     private double currentNewCount = 0;
     private int targetCount = Config.MAX_CARS;
+    private volatile boolean running = true;
 
     public Simulation(Navigation navigation) {
+        this(navigation, new DetectionPublisher(new ParticipantsDetectionSystemService()::setCarEvents, navigation));
+    }
+
+    public Simulation(Navigation navigation, Consumer<CarEvents> eventConsumer) {
+        this(navigation, SimulationEngineType.valueOf(Config.PARTICIPANTS_SIMULATION_ENGINE).create(navigation),
+                new Random(), eventConsumer);
+    }
+
+    /**
+     * @param random source of all randomness of the simulation, a seeded instance makes runs reproducible
+     * @param eventConsumer receives the road changes of the cars after every tick, only valid during the call
+     */
+    public Simulation(Navigation navigation, SimulationEngine engine, Random random,
+                      Consumer<CarEvents> eventConsumer) {
         this.navigation = navigation;
+        this.engine = engine;
+        this.random = random;
+        this.eventConsumer = eventConsumer;
     }
 
     public synchronized Participant[] getParticipants() {
-        return participants.toArray(Participant[]::new);
+        return engine.getParticipants();
+    }
+
+    /**
+     * @see SimulationEngine#forEachParticipant(ParticipantVisitor)
+     */
+    public synchronized void forEachParticipant(ParticipantVisitor visitor) {
+        engine.forEachParticipant(visitor);
+    }
+
+    /**
+     * Adds a listener that is called at the end of every tick while the simulation is locked,
+     * so it sees a consistent state. Listeners must not block.
+     */
+    public void addTickListener(Runnable listener) {
+        tickListeners.add(listener);
     }
 
     public synchronized void addParticipant(Participant participant) {
-        participants.add(participant);
+        engine.addParticipant(participant);
+        events.enter(participant.getId(), participant.getPosition().getRoad().getIndex());
+    }
+
+    /**
+     * Queues participants that are added together at the start of the next tick, without waiting for the
+     * simulation lock. Rejects the whole batch if more than {@link Config#PARTICIPANTS_MAX_PENDING_TRIPS}
+     * participants would be waiting.
+     * @return false if the batch was rejected
+     */
+    public boolean addParticipantsAtNextTick(List<Participant> participants) {
+        if (participants.isEmpty()) return true;
+        if (pendingCount.addAndGet(participants.size()) > Config.PARTICIPANTS_MAX_PENDING_TRIPS) {
+            pendingCount.addAndGet(-participants.size());
+            return false;
+        }
+        pendingBatches.add(participants);
+        return true;
+    }
+
+    private void addPendingParticipants() {
+        for (List<Participant> batch = pendingBatches.poll(); batch != null; batch = pendingBatches.poll()) {
+            for (Participant participant : batch) addParticipant(participant);
+            pendingCount.addAndGet(-batch.size());
+        }
+    }
+
+    /**
+     * Saves the state of the simulation, see {@link SimulationSnapshot}. The simulation is only locked while the
+     * state is copied into memory, not while the file is written.
+     */
+    public SimulationSnapshot.Summary saveSnapshot(Path file) throws IOException {
+        long ts = System.nanoTime();
+        ByteBuffer data;
+        int count;
+        synchronized (this) {
+            Participant[] participants = engine.getParticipants();
+            data = SimulationSnapshot.encode(navigation.getRoadNetwork(), participants);
+            count = participants.length;
+        }
+        long bytes = data.remaining();
+        SimulationSnapshot.write(data, file);
+        return new SimulationSnapshot.Summary(count, bytes, (System.nanoTime() - ts) / 1000000);
+    }
+
+    /**
+     * Adds the participants and traffic light states of a snapshot, see {@link SimulationSnapshot}.
+     * The traffic lights switch with the next tick.
+     * @return the number of participants added
+     */
+    public synchronized int restoreSnapshot(Path file) throws IOException {
+        return SimulationSnapshot.read(file, navigation, this::addParticipant);
+    }
+
+    /**
+     * Sets the demand model the trips of new participants are generated from, by default every road is equally
+     * likely as start and destination.
+     */
+    public synchronized void setDemandModel(DemandModel demandModel) {
+        this.demandModel = demandModel;
+    }
+
+    private void generateParticipants(int count) {
+        if (demandModel == null) demandModel = DemandModel.uniform(navigation.getRoadNetwork());
+        Road[] roads = navigation.getRoadNetwork().roads;
+        DemandModel.Trips trips = demandModel.generate(count, new SplittableRandom(random.nextLong()));
+        for (int i = 0; i < trips.getCount(); i++) {
+            Road start = roads[trips.startRoads[i]];
+            Road end = roads[trips.endRoads[i]];
+            addParticipant(new Participant(new Position(start, trips.startPositions[i]),
+                    new Position(end, trips.endPositions[i]), navigation, null));
+        }
+    }
+
+    public synchronized void setTargetCount(int targetCount) {
+        this.targetCount = targetCount;
     }
 
-    private void generateParticipant() {
-        Road start;
-        Road end;
-        final int maxCount = 20;
-        int count = 0;
-        do {
-            if (count++ > maxCount) return;
-            start = navigation.getRoadNetwork().roads[random.nextInt(navigation.getRoadNetwork().roads.length)];
-            end = navigation.getRoadNetwork().roads[random.nextInt(navigation.getRoadNetwork().roads.length)];
-        } while (navigation.getNext(start.getEnd(), end) == null);
-        addParticipant(new Participant(new Position(start, random.nextDouble() * start.getLength()),
-                new Position(end, random.nextDouble() * end.getLength()), navigation, null));
+    public synchronized int getParticipantCount() {
+        return engine.getParticipantCount();
     }
 
     private void updateCount() {
-        int diff = targetCount - participants.size();
+        int diff = targetCount - engine.getParticipantCount();
         if (diff > 0) {
             currentNewCount += MAX_COUNT_PER_TICK;
             if (currentNewCount > diff) currentNewCount = diff;
-            while (currentNewCount >= 1) {
-                generateParticipant();
-                currentNewCount -= 1;
-            }
+            int count = (int) currentNewCount;
+            if (count > 0) generateParticipants(count);
+            currentNewCount -= count;
         }
     }
 
-    private synchronized void tick() {
-        ArrayList<Participant> toRemove = new ArrayList<>();
-        long ts = System.nanoTime();
+    /**
+     * Advances the simulation by one step of one second and passes the road changes to the event consumer.
+     */
+    public synchronized void tick() {
+        navigation.getRoadNetwork().applyTrafficLights();
+        navigation.update();
+        addPendingParticipants();
         updateCount();
-        participants.parallelStream().forEach(Participant::updateAcceleration);
-        Arrays.stream(navigation.getRoadNetwork().roads).parallel().forEach(Road::resetParticipants);
 
         //double elapsed = (System.nanoTime() - ts) * TIME_FACTOR / 1000000000D;
         double elapsed = 1;
 
-        participants.parallelStream().forEach(participant -> {
-            try {
-                if (participant.updatePosition(elapsed)) {
-                    participant.getPosition().setRoad(null);
-                    synchronized (toRemove) {
-                        toRemove.add(participant);
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        });
-        CarPosition[] positions = new CarPosition[participants.size()];
-        int idx = 0;
-        for (Participant participant : participants) {
-            if (participant.getPosition().getRoad() == null)
-                positions[idx++] = new CarPosition(Integer.toString(participant.getId()), null, null);
-            else positions[idx++] = new CarPosition(Integer.toString(participant.getId()),
-                    participant.getPosition().getRoad().getEnd().getId(), participant.getPosition().getRoad().getId());
-        }
-        detectionService.setCarPosition(positions);
-        Arrays.stream(navigation.getRoadNetwork().roads).parallel().forEach(Road::sortParticipants);
-        for (Participant participant : toRemove) {
-            participants.remove(participant);
-        }
-        toRemove.clear();
-        System.out.println("Elapsed: " + (System.nanoTime() - ts) + "ns (" + participants.size() + "#)");
+        engine.tick(elapsed, events);
+        eventConsumer.accept(events);
+        events.clear();
+        for (Runnable listener : tickListeners) listener.run();
+    }
+
+    /**
+     * Stops {@link #run()} after the current tick and releases the threads of the engine.
+     */
+    public synchronized void shutdown() {
+        running = false;
+        engine.shutdown();
     }
 
     @Override
     public void run() {
-        while (true) {
+        while (running) {
             try {
-                tick();
+                long ts = System.nanoTime();
+                synchronized (this) {
+                    if (!running) break;
+                    tick();
+                }
+                System.out.println("Elapsed: " + (System.nanoTime() - ts) + "ns (" + getParticipantCount() + "#)");
                 if (TIME_FACTOR != 0) Thread.sleep((int) (1000 / TIME_FACTOR));
             } catch (Exception e) {
                 System.out.println(e.toString());
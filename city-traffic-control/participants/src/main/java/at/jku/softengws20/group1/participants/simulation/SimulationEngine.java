@@ -0,0 +1,30 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+/**
+ * Holds the state of all participants and advances it tick by tick.
+ * Engines are only accessed while holding the {@link Simulation} lock.
+ */
+public interface SimulationEngine {
+    void addParticipant(Participant participant);
+
+    int getParticipantCount();
+
+    Participant[] getParticipants();
+
+    /**
+     * Visits all participants, cheaper than {@link #getParticipants()} as nothing is copied.
+     */
+    void forEachParticipant(ParticipantVisitor visitor);
+
+    /**
+     * Advances all participants by the given time.
+     * @param elapsed simulated seconds since the last tick
+     * @param events  receives the road changes and arrivals of the tick
+     */
+    void tick(double elapsed, CarEvents events);
+
+    /**
+     * Releases the threads of the engine, it must not be ticked afterwards.
+     */
+    void shutdown();
+}
@@ -0,0 +1,26 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+
+public enum SimulationEngineType {
+    OBJECT {
+        @Override
+        public SimulationEngine create(Navigation navigation) {
+            return new ObjectSimulationEngine(navigation);
+        }
+    },
+    ARRAY {
+        @Override
+        public SimulationEngine create(Navigation navigation) {
+            return new ArraySimulationEngine(navigation);
+        }
+    },
+    REGION {
+        @Override
+        public SimulationEngine create(Navigation navigation) {
+            return new RegionSimulationEngine(navigation);
+        }
+    };
+
+    public abstract SimulationEngine create(Navigation navigation);
+}
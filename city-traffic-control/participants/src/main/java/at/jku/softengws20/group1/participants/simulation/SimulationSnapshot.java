@@ -0,0 +1,210 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.roadNetwork.Crossing;
+import at.jku.softengws20.group1.participants.roadNetwork.Position;
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Binary snapshot of a simulation: every participant with position, velocity, acceleration, destination, callback
+ * and planned route, and the traffic light state of every road. Restoring a snapshot at startup skips the ramp up
+ * from zero cars and lets benchmarks start from a known warm state.
+ * <p>
+ * Layout, big endian: magic, format, crossing count, road count, hash of the crossing and road ids (long),
+ * participant count, one byte per road (1 = green), then per participant id, road, road position, destination road,
+ * destination position, velocity, acceleration, route index, route length, route roads, callback length
+ * (-1 = none) and the UTF-8 bytes of the callback. Snapshots are written to a temporary file that then replaces
+ * the target, and read memory mapped.
+ */
+public final class SimulationSnapshot {
+    private static final int MAGIC = 0x50534e50; //"PSNP"
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 4;
+    private static final int RECORD_SIZE = 4 + 4 + 8 + 4 + 8 + 8 + 8 + 4 + 4 + 4;
+
+    private SimulationSnapshot() {
+    }
+
+    /**
+     * Encodes the state into memory, so the simulation only has to be locked while copying.
+     */
+    static ByteBuffer encode(RoadNetwork roadNetwork, Participant[] participants) {
+        byte[][] callbacks = new byte[participants.length][];
+        long size = HEADER_SIZE + roadNetwork.roads.length;
+        for (int i = 0; i < participants.length; i++) {
+            Participant participant = participants[i];
+            if (participant.getCallback() != null) callbacks[i] = participant.getCallback().getBytes(StandardCharsets.UTF_8);
+            size += RECORD_SIZE + (callbacks[i] == null ? 0 : callbacks[i].length);
+            if (participant.getRoute() != null) size += 4L * participant.getRoute().length;
+        }
+        if (size > Integer.MAX_VALUE) throw new IllegalStateException("snapshot too large: " + size + " bytes");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(FORMAT)
+                .putInt(roadNetwork.crossings.length).putInt(roadNetwork.roads.length).putLong(mapHash(roadNetwork))
+                .putInt(participants.length);
+        for (Road road : roadNetwork.roads) buffer.put((byte) (road.isGreen() ? 1 : 0));
+        for (int i = 0; i < participants.length; i++) {
+            Participant participant = participants[i];
+            int[] route = participant.getRoute();
+            buffer.putInt(participant.getId())
+                    .putInt(participant.getPosition().getRoad().getIndex())
+                    .putDouble(participant.getPosition().getRoadPosition())
+                    .putInt(participant.getDestination().getRoad().getIndex())
+                    .putDouble(participant.getDestination().getRoadPosition())
+                    .putDouble(participant.getVelocity())
+                    .putDouble(participant.getAcceleration())
+                    .putInt(participant.getRouteIndex());
+            if (route == null) buffer.putInt(-1);
+            else {
+                buffer.putInt(route.length);
+                for (int road : route) buffer.putInt(road);
+            }
+            if (callbacks[i] == null) buffer.putInt(-1);
+            else buffer.putInt(callbacks[i].length).put(callbacks[i]);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static void write(ByteBuffer buffer, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(false);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads a snapshot, publishes its traffic light states and passes the participants to the consumer.
+     * The whole file is validated before the first participant is passed on.
+     * @return the number of participants read
+     * @throws IOException if the file can not be read, is no snapshot or was taken on another road network
+     */
+    static int read(Path file, Navigation navigation, Consumer<Participant> consumer) throws IOException {
+        RoadNetwork roadNetwork = navigation.getRoadNetwork();
+        ArrayList<Participant> participants;
+        boolean[] green = new boolean[roadNetwork.roads.length];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) throw new IOException(file + " is no simulation snapshot");
+            int format = buffer.getInt();
+            if (format != FORMAT) throw new IOException("unsupported snapshot format " + format);
+            if (buffer.getInt() != roadNetwork.crossings.length || buffer.getInt() != roadNetwork.roads.length
+                    || buffer.getLong() != mapHash(roadNetwork))
+                throw new IOException("snapshot was taken on another road network");
+            int count = buffer.getInt();
+            for (int road = 0; road < green.length; road++) green[road] = buffer.get() != 0;
+            participants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) participants.add(readParticipant(buffer, roadNetwork, navigation));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("snapshot is truncated", e);
+        }
+
+        for (Crossing crossing : roadNetwork.crossings) {
+            ArrayList<Road> greenRoads = new ArrayList<>();
+            for (Road road : crossing.getIncomingRoads()) {
+                if (green[road.getIndex()]) greenRoads.add(road);
+            }
+            roadNetwork.setGreenRoads(crossing, greenRoads);
+        }
+        for (Participant participant : participants) {
+            Participant.reserveId(participant.getId());
+            consumer.accept(participant);
+        }
+        return participants.size();
+    }
+
+    private static Participant readParticipant(ByteBuffer buffer, RoadNetwork roadNetwork, Navigation navigation) throws IOException {
+        int id = buffer.getInt();
+        Road road = road(roadNetwork, buffer.getInt());
+        double roadPosition = buffer.getDouble();
+        Road destinationRoad = road(roadNetwork, buffer.getInt());
+        double destinationPosition = buffer.getDouble();
+        double velocity = buffer.getDouble();
+        double acceleration = buffer.getDouble();
+        int routeIndex = buffer.getInt();
+        int routeLength = buffer.getInt();
+        int[] route = null;
+        if (routeLength >= 0) {
+            if (routeIndex < 0 || routeIndex >= routeLength) throw new IOException("invalid route of participant " + id);
+            route = new int[routeLength];
+            for (int i = 0; i < routeLength; i++) route[i] = road(roadNetwork, buffer.getInt()).getIndex();
+        }
+        int callbackLength = buffer.getInt();
+        String callback = null;
+        if (callbackLength >= 0) {
+            byte[] bytes = new byte[callbackLength];
+            buffer.get(bytes);
+            callback = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Participant(id, new Position(road, roadPosition), new Position(destinationRoad, destinationPosition),
+                navigation, velocity, acceleration, callback, route, route == null ? 0 : routeIndex);
+    }
+
+    private static Road road(RoadNetwork roadNetwork, int index) throws IOException {
+        if (index < 0 || index >= roadNetwork.roads.length) throw new IOException("invalid road index " + index);
+        return roadNetwork.roads[index];
+    }
+
+    private static long mapHash(RoadNetwork roadNetwork) {
+        long hash = 17;
+        for (Crossing crossing : roadNetwork.crossings) hash = hash * 31 + crossing.getId().hashCode();
+        for (Road road : roadNetwork.roads) {
+            hash = hash * 31 + road.getId().hashCode();
+            hash = hash * 31 + road.getStart().getIndex();
+            hash = hash * 31 + road.getEnd().getIndex();
+        }
+        return hash;
+    }
+
+    /**
+     * Result of saving a snapshot.
+     */
+    public static class Summary {
+        private final int participants;
+        private final long bytes;
+        private final long duration;
+
+        Summary(int participants, long bytes, long duration) {
+            this.participants = participants;
+            this.bytes = bytes;
+            this.duration = duration;
+        }
+
+        public int getParticipants() {
+            return participants;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * ms to copy the state and write the file
+         */
+        public long getDuration() {
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * File format of the trajectory log, shared by {@link TrajectoryRecorder} and {@link TrajectoryStore}.
+ * <p>
+ * A recording is a directory of segment files {@code trajectory-<first tick>.seg}, each with an index file
+ * {@code trajectory-<first tick>.idx}. A segment is a sequence of blocks, one per tick:
+ * kind (byte), tick (varint), car count (varint), then one record per car in ascending id order.
+ * A record is the id as difference to the previous id minus one (varint), followed by road, road position in cm
+ * and velocity in cm/s. In a {@link #KEYFRAME} block, and for cars that were not in the previous block, these are
+ * absolute values; in a {@link #DELTA} block they are differences to the values of the same car in the previous
+ * block. All values but the id are zigzag encoded.
+ * <p>
+ * Every segment starts with a keyframe, further keyframes follow at a fixed interval and after ticks that could
+ * not be recorded. The index file holds one entry per keyframe: tick (long) and offset in the segment (long),
+ * so a query only decodes from the last keyframe before its start.
+ */
+final class TrajectoryFormat {
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+    static final String PREFIX = "trajectory-";
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+    static final int INDEX_ENTRY_SIZE = 16;
+    /**
+     * resolution of road position and velocity, 1 cm and 1 cm/s
+     */
+    static final double SCALE = 100;
+
+    private TrajectoryFormat() {
+    }
+
+    static String segmentName(long firstTick) {
+        return String.format("%s%012d%s", PREFIX, firstTick, SEGMENT_SUFFIX);
+    }
+
+    static String indexName(long firstTick) {
+        return String.format("%s%012d%s", PREFIX, firstTick, INDEX_SUFFIX);
+    }
+
+    /**
+     * @return the first tick of a segment file, -1 if the name is no segment name
+     */
+    static long firstTick(String segmentName) {
+        if (!segmentName.startsWith(PREFIX) || !segmentName.endsWith(SEGMENT_SUFFIX)) return -1;
+        try {
+            return Long.parseLong(segmentName.substring(PREFIX.length(), segmentName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable byte buffer for encoding a block.
+     */
+    static final class Output {
+        byte[] bytes = new byte[4096];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void writeByte(int value) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Buffered reader of a segment, unlike {@link java.io.BufferedInputStream} without locking per byte.
+     */
+    static final class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        /**
+         * @return the next byte, -1 at the end of the file
+         */
+        int read() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read <= 0) return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        /**
+         * @throws EOFException if the file ends within the value, e.g. at a block that is still being written
+         */
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                if (b < 0) throw new EOFException();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("malformed varint");
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.shared.Config;
+
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.stream.Stream;
+
+import static at.jku.softengws20.group1.participants.simulation.TrajectoryFormat.*;
+
+/**
+ * Appends the id, road, road position and velocity of every car after every tick to the segmented, delta encoded
+ * log described in {@link TrajectoryFormat}; {@link TrajectoryStore} queries it.
+ * <p>
+ * The state is copied at the end of the tick, encoding and writing happen on a background thread. If the writer
+ * falls behind by more than a few ticks, further ticks are dropped and counted, and the next recorded tick is a
+ * keyframe.
+ */
+public class TrajectoryRecorder {
+    private static final int QUEUE_CAPACITY = 8;
+
+    private final Simulation simulation;
+    private final Path directory;
+    private final int segmentTicks;
+    private final int keyframeInterval;
+    private final Thread thread;
+    private final ArrayBlockingQueue<Frame> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private long tick = 0;
+
+    //tick copy, only used by the simulation thread
+    private int count;
+    private int[] ids = new int[1024];
+    private int[] roads = new int[1024];
+    private int[] positions = new int[1024];
+    private int[] velocities = new int[1024];
+
+    //writer state, only used by the writer thread
+    private FileOutputStream segment;
+    private DataOutputStream index;
+    private long segmentStart;
+    private long segmentSize;
+    private long lastTick = -1;
+    private long lastKeyframe;
+    private Frame previous;
+    private final Output output = new Output();
+
+    private volatile long recorded = 0;
+    private volatile long dropped = 0;
+    private volatile long bytes = 0;
+    private volatile String error;
+
+    /**
+     * Starts recording the simulation into the given directory, which must not contain a recording yet.
+     */
+    public TrajectoryRecorder(Simulation simulation, Path directory) throws IOException {
+        this(simulation, directory, Config.PARTICIPANTS_RECORDING_SEGMENT_TICKS,
+                Config.PARTICIPANTS_RECORDING_KEYFRAME_INTERVAL);
+        start();
+    }
+
+    /**
+     * Records with other segment and keyframe sizes than configured. Ticks are only written after {@link #start()},
+     * until then they are queued and dropped once the queue is full.
+     */
+    TrajectoryRecorder(Simulation simulation, Path directory, int segmentTicks, int keyframeInterval) throws IOException {
+        this.simulation = simulation;
+        this.directory = directory;
+        this.segmentTicks = segmentTicks;
+        this.keyframeInterval = keyframeInterval;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            if (files.anyMatch(file -> firstTick(file.getFileName().toString()) >= 0))
+                throw new IOException(directory + " already contains a recording");
+        }
+        simulation.addTickListener(this::capture);
+        thread = new Thread(this::writeLoop, "trajectory-recorder");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    void start() {
+        thread.start();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Called at the end of a tick while the simulation is locked.
+     */
+    private void capture() {
+        long current = tick++;
+        if (error != null) return;
+        if (queue.remainingCapacity() == 0) {
+            dropped++;
+            return;
+        }
+        count = 0;
+        simulation.forEachParticipant((id, road, roadPosition, velocity, acceleration, hasCallback) -> {
+            if (count == ids.length) grow();
+            ids[count] = id;
+            roads[count] = road;
+            positions[count] = (int) Math.round(roadPosition * SCALE);
+            velocities[count] = (int) Math.round(velocity * SCALE);
+            count++;
+        });
+        queue.add(new Frame(current, Arrays.copyOf(ids, count), Arrays.copyOf(roads, count),
+                Arrays.copyOf(positions, count), Arrays.copyOf(velocities, count)));
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        roads = Arrays.copyOf(roads, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        velocities = Arrays.copyOf(velocities, capacity);
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                Frame frame = queue.take();
+                frame.sortById();
+                write(frame);
+                recorded++;
+            }
+        } catch (InterruptedException e) {
+            //stopped
+        } catch (IOException e) {
+            error = e.toString();
+            System.out.println("trajectory recording stopped: " + e);
+        } finally {
+            closeSegment();
+        }
+    }
+
+    private void write(Frame frame) throws IOException {
+        boolean keyframe = frame.tick != lastTick + 1 || frame.tick - lastKeyframe >= keyframeInterval;
+        if (segment == null || frame.tick - segmentStart >= segmentTicks) {
+            closeSegment();
+            segmentStart = frame.tick;
+            segmentSize = 0;
+            segment = new FileOutputStream(directory.resolve(segmentName(frame.tick)).toFile());
+            index = new DataOutputStream(new FileOutputStream(directory.resolve(indexName(frame.tick)).toFile()));
+            keyframe = true;
+        }
+        if (keyframe) {
+            index.writeLong(frame.tick);
+            index.writeLong(segmentSize);
+            index.flush();
+            lastKeyframe = frame.tick;
+            previous = null;
+        }
+
+        output.clear();
+        output.writeByte(keyframe ? KEYFRAME : DELTA);
+        output.writeVarLong(frame.tick);
+        output.writeVarInt(frame.ids.length);
+        int previousId = -1;
+        int p = 0;
+        for (int i = 0; i < frame.ids.length; i++) {
+            int id = frame.ids[i];
+            output.writeVarInt(id - previousId - 1);
+            previousId = id;
+            if (previous != null) {
+                while (p < previous.ids.length && previous.ids[p] < id) p++;
+            }
+            if (previous != null && p < previous.ids.length && previous.ids[p] == id) {
+                output.writeVarInt(zigzag(frame.roads[i] - previous.roads[p]));
+                output.writeVarInt(zigzag(frame.positions[i] - previous.positions[p]));
+                output.writeVarInt(zigzag(frame.velocities[i] - previous.velocities[p]));
+            } else {
+                output.writeVarInt(zigzag(frame.roads[i]));
+                output.writeVarInt(zigzag(frame.positions[i]));
+                output.writeVarInt(zigzag(frame.velocities[i]));
+            }
+        }
+        segment.write(output.bytes, 0, output.size);
+        segmentSize += output.size;
+        bytes += output.size;
+        lastTick = frame.tick;
+        previous = frame;
+    }
+
+    private void closeSegment() {
+        try {
+            if (segment != null) segment.close();
+            if (index != null) index.close();
+        } catch (IOException e) {
+            System.out.println("closing trajectory segment failed: " + e);
+        }
+        segment = null;
+        index = null;
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(recorded, dropped, bytes, queue.size(), error);
+    }
+
+    private static class Frame {
+        private final long tick;
+        private final int[] ids;
+        private final int[] roads;
+        private final int[] positions;
+        private final int[] velocities;
+
+        Frame(long tick, int[] ids, int[] roads, int[] positions, int[] velocities) {
+            this.tick = tick;
+            this.ids = ids;
+            this.roads = roads;
+            this.positions = positions;
+            this.velocities = velocities;
+        }
+
+        void sortById() {
+            long[] keys = new long[ids.length];
+            boolean sorted = true;
+            for (int i = 0; i < ids.length; i++) {
+                keys[i] = (long) ids[i] << 32 | i;
+                if (i > 0 && ids[i] < ids[i - 1]) sorted = false;
+            }
+            if (sorted) return;
+            Arrays.sort(keys);
+            int[] roads = this.roads.clone();
+            int[] positions = this.positions.clone();
+            int[] velocities = this.velocities.clone();
+            for (int i = 0; i < keys.length; i++) {
+                int from = (int) keys[i];
+                ids[i] = (int) (keys[i] >>> 32);
+                this.roads[i] = roads[from];
+                this.positions[i] = positions[from];
+                this.velocities[i] = velocities[from];
+            }
+        }
+    }
+
+    public static class Metrics {
+        private final long recorded;
+        private final long dropped;
+        private final long bytes;
+        private final int pending;
+        private final String error;
+
+        private Metrics(long recorded, long dropped, long bytes, int pending, String error) {
+            this.recorded = recorded;
+            this.dropped = dropped;
+            this.bytes = bytes;
+            this.pending = pending;
+            this.error = error;
+        }
+
+        /**
+         * ticks written to the log
+         */
+        public long getRecorded() {
+            return recorded;
+        }
+
+        /**
+         * ticks not recorded because the writer fell behind
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * ticks waiting for the writer
+         */
+        public int getPending() {
+            return pending;
+        }
+
+        /**
+         * error that stopped the recording, null while recording
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static at.jku.softengws20.group1.participants.simulation.TrajectoryFormat.*;
+
+/**
+ * Queries a recording of the {@link TrajectoryRecorder}, also while it is still being written.
+ * A query only reads the segments overlapping its time range, starting at the last keyframe before the range.
+ */
+public class TrajectoryStore {
+    private final Path directory;
+
+    public TrajectoryStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the samples of all cars on the road from tick {@code from} to tick {@code to} (both inclusive),
+     * ordered by tick and car id
+     */
+    public List<Sample> carsOnRoad(int road, long from, long to) throws IOException {
+        ArrayList<Sample> samples = new ArrayList<>();
+        scan(from, to, (tick, id, r, position, velocity) -> {
+            if (r == road) samples.add(new Sample(tick, id, r, position, velocity));
+        });
+        return samples;
+    }
+
+    /**
+     * @return the samples of one car from tick {@code from} to tick {@code to} (both inclusive), ordered by tick
+     */
+    public List<Sample> trajectory(int car, long from, long to) throws IOException {
+        ArrayList<Sample> samples = new ArrayList<>();
+        scan(from, to, (tick, id, road, position, velocity) -> {
+            if (id == car) samples.add(new Sample(tick, id, road, position, velocity));
+        });
+        return samples;
+    }
+
+    private interface RecordVisitor {
+        void visit(long tick, int id, int road, int position, int velocity);
+    }
+
+    private void scan(long from, long to, RecordVisitor visitor) throws IOException {
+        long[] segments = segments();
+        for (int s = 0; s < segments.length; s++) {
+            if (segments[s] > to) break;
+            if (s + 1 < segments.length && segments[s + 1] <= from) continue;
+            scanSegment(segments[s], from, to, visitor);
+        }
+    }
+
+    /**
+     * @return the first ticks of all segments, ascending
+     */
+    private long[] segments() throws IOException {
+        if (!Files.isDirectory(directory)) return new long[0];
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> firstTick(file.getFileName().toString())).filter(tick -> tick >= 0).sorted().toArray();
+        }
+    }
+
+    private void scanSegment(long firstTick, long from, long to, RecordVisitor visitor) throws IOException {
+        long offset = keyframeOffset(directory.resolve(indexName(firstTick)), from);
+        try (FileChannel channel = FileChannel.open(directory.resolve(segmentName(firstTick)), StandardOpenOption.READ)) {
+            channel.position(offset);
+            Input in = new Input(channel);
+            int[] ids = new int[0];
+            int[] roads = new int[0];
+            int[] positions = new int[0];
+            int[] velocities = new int[0];
+            int previousCount = 0;
+            while (true) {
+                int kind = in.read();
+                if (kind < 0) return;
+                if (kind != KEYFRAME && kind != DELTA) throw new IOException("corrupt trajectory segment " + firstTick);
+                int[] nextIds, nextRoads, nextPositions, nextVelocities;
+                long tick;
+                int count;
+                try {
+                    tick = in.readVarLong();
+                    if (tick > to) return;
+                    count = in.readVarInt();
+                    nextIds = new int[count];
+                    nextRoads = new int[count];
+                    nextPositions = new int[count];
+                    nextVelocities = new int[count];
+                    int id = -1;
+                    int p = 0;
+                    for (int i = 0; i < count; i++) {
+                        id += in.readVarInt() + 1;
+                        int road = unzigzag(in.readVarInt());
+                        int position = unzigzag(in.readVarInt());
+                        int velocity = unzigzag(in.readVarInt());
+                        if (kind == DELTA) {
+                            while (p < previousCount && ids[p] < id) p++;
+                            if (p < previousCount && ids[p] == id) {
+                                road += roads[p];
+                                position += positions[p];
+                                velocity += velocities[p];
+                            }
+                        }
+                        nextIds[i] = id;
+                        nextRoads[i] = road;
+                        nextPositions[i] = position;
+                        nextVelocities[i] = velocity;
+                    }
+                } catch (EOFException e) {
+                    //the block is still being written
+                    return;
+                }
+                if (tick >= from) {
+                    for (int i = 0; i < count; i++) {
+                        visitor.visit(tick, nextIds[i], nextRoads[i], nextPositions[i], nextVelocities[i]);
+                    }
+                }
+                ids = nextIds;
+                roads = nextRoads;
+                positions = nextPositions;
+                velocities = nextVelocities;
+                previousCount = count;
+            }
+        }
+    }
+
+    /**
+     * @return the offset of the last keyframe at or before the tick, 0 if there is none
+     */
+    private static long keyframeOffset(Path indexFile, long tick) throws IOException {
+        if (!Files.exists(indexFile)) return 0;
+        byte[] bytes = Files.readAllBytes(indexFile);
+        ByteBuffer index = ByteBuffer.wrap(bytes, 0, bytes.length - bytes.length % INDEX_ENTRY_SIZE);
+        long[] ticks = new long[index.remaining() / INDEX_ENTRY_SIZE];
+        long[] offsets = new long[ticks.length];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = index.getLong();
+            offsets[i] = index.getLong();
+        }
+        int i = Arrays.binarySearch(ticks, tick);
+        if (i < 0) i = -i - 2;
+        return i < 0 ? 0 : offsets[i];
+    }
+
+    /**
+     * State of one car at the end of a tick.
+     */
+    public static class Sample {
+        private final long tick;
+        private final int carId;
+        private final int road;
+        private final double roadPosition;
+        private final double velocity;
+
+        Sample(long tick, int carId, int road, int roadPosition, int velocity) {
+            this.tick = tick;
+            this.carId = carId;
+            this.road = road;
+            this.roadPosition = roadPosition / SCALE;
+            this.velocity = velocity / SCALE;
+        }
+
+        /**
+         * ticks since the recording started
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        public int getCarId() {
+            return carId;
+        }
+
+        /**
+         * index of the road in the order of the road segments of the map
+         */
+        public int getRoad() {
+            return road;
+        }
+
+        /**
+         * m from the start of the road
+         */
+        public double getRoadPosition() {
+            return roadPosition;
+        }
+
+        /**
+         * m/s
+         */
+        public double getVelocity() {
+            return velocity;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package at.jku.softengws20.group1.participants.navigation;
+
+import at.jku.softengws20.group1.participants.roadNetwork.Road;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadGraph;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.shared.TestMap;
+import at.jku.softengws20.group1.shared.impl.model.Crossing;
+import at.jku.softengws20.group1.shared.impl.model.Position;
+import at.jku.softengws20.group1.shared.impl.model.RoadSegment;
+import at.jku.softengws20.group1.shared.impl.model.RoadType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NavigationTest {
+    private static final int ROUNDS = 15;
+    private static final int CHANGES_PER_ROUND = 30;
+    private static final int QUERIES = 300;
+
+    @ParameterizedTest
+    @EnumSource(RoutingMode.class)
+    void repairedRoutesOnTestMap(RoutingMode mode) {
+        checkRepairedRoutes(mode, RoadNetwork.create(TestMap.loadDummyMap()), 3);
+    }
+
+    @ParameterizedTest
+    @EnumSource(RoutingMode.class)
+    void repairedRoutesOnGrid(RoutingMode mode) {
+        checkRepairedRoutes(mode, grid(8, new Random(5)), 3);
+    }
+
+    /**
+     * Closes, opens, slows down and speeds up random roads through {@link Navigation#setRoadState} and
+     * {@link Navigation#update()} and compares the costs of the cached routes with a newly created router.
+     */
+    private static void checkRepairedRoutes(RoutingMode mode, RoadNetwork roadNetwork, long seed) {
+        Random random = new Random(seed);
+        RoadGraph graph = roadNetwork.graph;
+        Navigation navigation = new Navigation(mode);
+        navigation.setRoadNetwork(roadNetwork);
+        int[] starts = new int[QUERIES];
+        int[] destinations = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = random.nextInt(graph.getRoadCount());
+            destinations[i] = random.nextInt(graph.getRoadCount());
+            navigation.getRoute(starts[i], destinations[i]);        //fill the caches
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < CHANGES_PER_ROUND; i++) {
+                Road road = roadNetwork.roads[random.nextInt(roadNetwork.roads.length)];
+                if (random.nextInt(4) == 0) {
+                    navigation.setRoadState(road, !road.isClosed(), Double.NaN);
+                } else {
+                    double speed = road.getSpeedLimit() * (0.1 + 0.9 * random.nextDouble());
+                    navigation.setRoadState(road, road.isClosed(), speed);
+                }
+            }
+            navigation.update();
+
+            Navigation fresh = new Navigation(mode);
+            fresh.setRoadNetwork(roadNetwork);
+            for (int i = 0; i < QUERIES; i++) {
+                double expected = cost(graph, fresh.getRoute(starts[i], destinations[i]), destinations[i]);
+                double actual = cost(graph, navigation.getRoute(starts[i], destinations[i]), destinations[i]);
+                assertEquals(expected, actual, 1e-9,
+                        mode + " round " + round + " route " + starts[i] + " -> " + destinations[i]);
+            }
+        }
+    }
+
+    /**
+     * @return cost of the route after its first road, infinite if it does not reach the destination or uses a
+     * closed road
+     */
+    private static double cost(RoadGraph graph, int[] route, int destination) {
+        if (route[route.length - 1] != destination) return Double.POSITIVE_INFINITY;
+        double cost = 0;
+        for (int i = 1; i < route.length; i++) {
+            if (graph.isClosed(route[i])) return Double.POSITIVE_INFINITY;
+            cost += Router.cost(graph, route[i]);
+        }
+        return cost;
+    }
+
+    /**
+     * @return a grid of size x size crossings, neighbours are connected by roads in both directions
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RoadNetwork grid(int size, Random random) {
+        Crossing[] crossings = new Crossing[size * size];
+        List<RoadSegment> roadSegments = new ArrayList<>();
+        List<List<String>> roadsAtCrossing = new ArrayList<>();
+        for (int i = 0; i < crossings.length; i++) roadsAtCrossing.add(new ArrayList<>());
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int crossing = y * size + x;
+                if (x + 1 < size) connect(crossing, crossing + 1, random, roadSegments, roadsAtCrossing);
+                if (y + 1 < size) connect(crossing, crossing + size, random, roadSegments, roadsAtCrossing);
+            }
+        }
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int crossing = y * size + x;
+                crossings[crossing] = new Crossing(String.valueOf(crossing), new Position(x, y),
+                        roadsAtCrossing.get(crossing).toArray(new String[0]));
+            }
+        }
+        return RoadNetwork.create(new at.jku.softengws20.group1.shared.impl.model.RoadNetwork(crossings,
+                roadSegments.toArray(new RoadSegment[0]), new at.jku.softengws20.group1.shared.impl.model.Road[0], null));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void connect(int a, int b, Random random, List<RoadSegment> roadSegments, List<List<String>> roadsAtCrossing) {
+        for (int direction = 0; direction < 2; direction++) {
+            int from = direction == 0 ? a : b;
+            int to = direction == 0 ? b : a;
+            String id = from + "-" + to;
+            //lengths in km, with speed limits of 30 to 70 km/h
+            roadSegments.add(new RoadSegment<>(id, "grid", String.valueOf(from), String.valueOf(to),
+                    RoadType.RESIDENTIAL, 0.05 + 0.2 * random.nextDouble(), 30 + 10 * random.nextInt(5), new Position[0]));
+            roadsAtCrossing.get(from).add(id);
+            roadsAtCrossing.get(to).add(id);
+        }
+    }
+}
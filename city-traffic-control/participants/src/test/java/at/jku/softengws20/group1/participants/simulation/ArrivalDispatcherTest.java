@@ -0,0 +1,112 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArrivalDispatcherTest {
+    private static final String MAINTENANCE = "/maintenance/notifyMaintenanceCarArrived";
+
+    private final ArrivalDispatcher dispatcher = ArrivalDispatcher.getInstance();
+    /**
+     * method, path and body of every request the receiver got
+     */
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+    private int postStatus;
+    private long handled;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " " + body);
+            exchange.sendResponseHeaders(exchange.getRequestMethod().equals("POST") ? postStatus : 200, -1);
+            exchange.close();
+        });
+        server.start();
+        ArrivalDispatcher.Metrics metrics = dispatcher.getMetrics();
+        handled = metrics.getDelivered() + metrics.getFailed();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void unknownReceiverGetsSingleCallbacks() throws InterruptedException {
+        postStatus = 200;
+        for (int i = 0; i < 3; i++) dispatcher.offer(uri("/notify/" + i));
+        awaitHandled(3);
+        assertEquals(3, requests.size());
+        for (String request : requests) assertTrue(request.startsWith("GET /notify/"), request);
+    }
+
+    @Test
+    void maintenanceGetsBatch() throws InterruptedException {
+        postStatus = 200;
+        for (int i = 0; i < 3; i++) dispatcher.offer(uri(MAINTENANCE + "/VH" + i));
+        awaitHandled(3);
+        StringBuilder ids = new StringBuilder();
+        for (String request : requests) {
+            assertTrue(request.startsWith("POST " + MAINTENANCE + " "), request);
+            ids.append(request);
+        }
+        for (int i = 0; i < 3; i++) assertTrue(ids.toString().contains("\"VH" + i + "\""));
+    }
+
+    @Test
+    void rejectedBatchFallsBackToSingleCallbacks() throws InterruptedException {
+        //the receiver has a batch path of maintenance, but rejects the body
+        postStatus = 415;
+        String path = "/other" + MAINTENANCE;
+        for (int i = 0; i < 3; i++) dispatcher.offer(uri(path + "/VH" + i));
+        awaitHandled(3);
+        int gets = 0;
+        for (String request : requests) {
+            if (request.startsWith("GET " + path + "/VH")) gets++;
+            else assertTrue(request.startsWith("POST " + path + " "), request);
+        }
+        assertEquals(3, gets);
+
+        //the receiver is remembered and gets no further batch
+        requests.clear();
+        dispatcher.offer(uri(path + "/VH3"));
+        dispatcher.offer(uri(path + "/VH4"));
+        awaitHandled(5);
+        assertEquals(2, requests.size());
+        for (String request : requests) assertTrue(request.startsWith("GET " + path + "/VH"), request);
+    }
+
+    private String uri(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Waits until the given number of arrivals were delivered or failed since the test started.
+     */
+    private void awaitHandled(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            ArrivalDispatcher.Metrics metrics = dispatcher.getMetrics();
+            long done = metrics.getDelivered() + metrics.getFailed() - handled;
+            if (done >= count || System.currentTimeMillis() > deadline) break;
+            Thread.sleep(10);
+        }
+        assertEquals(0, dispatcher.getMetrics().getInFlight());
+        assertEquals(handled + count, dispatcher.getMetrics().getDelivered());
+    }
+}
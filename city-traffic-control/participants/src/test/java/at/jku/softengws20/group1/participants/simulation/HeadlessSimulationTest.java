@@ -0,0 +1,44 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.RoutingMode;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.shared.TestMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HeadlessSimulationTest {
+    private static final long SEED = 7;
+    private static final int THREADS = 2;
+    private static final int CARS = 200;
+    private static final int TICKS = 300;
+
+    @ParameterizedTest
+    @EnumSource(SimulationEngineType.class)
+    void repeatedRunsAreEqual(SimulationEngineType engineType) throws InterruptedException, ExecutionException {
+        assertEquals(run(engineType), run(engineType));
+    }
+
+    @Test
+    void enginesAreEqual() throws InterruptedException, ExecutionException {
+        long expected = run(SimulationEngineType.OBJECT);
+        for (SimulationEngineType engineType : SimulationEngineType.values()) {
+            assertEquals(expected, run(engineType), engineType.name());
+        }
+    }
+
+    private static long run(SimulationEngineType engineType) throws InterruptedException, ExecutionException {
+        HeadlessSimulation headless = new HeadlessSimulation(RoadNetwork.create(TestMap.loadDummyMap()), SEED, THREADS,
+                CARS, engineType, RoutingMode.DIJKSTRA);
+        try {
+            headless.run(TICKS);
+            return headless.checksum();
+        } finally {
+            headless.shutdown();
+        }
+    }
+}
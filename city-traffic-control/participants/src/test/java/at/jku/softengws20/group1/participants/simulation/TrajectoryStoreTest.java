@@ -0,0 +1,192 @@
+package at.jku.softengws20.group1.participants.simulation;
+
+import at.jku.softengws20.group1.participants.navigation.Navigation;
+import at.jku.softengws20.group1.participants.roadNetwork.Crossing;
+import at.jku.softengws20.group1.participants.roadNetwork.RoadNetwork;
+import at.jku.softengws20.group1.shared.TestMap;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrajectoryStoreTest {
+    private static final int TICKS = 400;
+    private static final int SEGMENT_TICKS = 100;
+    private static final int KEYFRAME_INTERVAL = 16;
+    /**
+     * the writer is held back for these ticks, so all but the first ones queued are dropped; fewer than
+     * {@link #KEYFRAME_INTERVAL}, so the gap lies within one keyframe interval
+     */
+    private static final int STALLED_TICKS = 12;
+
+    @TempDir
+    static Path directory;
+
+    private static TrajectoryStore store;
+    /**
+     * state of every car after every tick, as the simulation had it
+     */
+    private static final List<TrajectoryStore.Sample> captured = new ArrayList<>();
+    private static final Set<Long> droppedTicks = new HashSet<>();
+    private static int roadCount;
+
+    @BeforeAll
+    static void record() throws IOException, InterruptedException {
+        RoadNetwork roadNetwork = RoadNetwork.create(TestMap.loadDummyMap());
+        for (Crossing crossing : roadNetwork.crossings) roadNetwork.setGreenRoads(crossing, crossing.getIncomingRoads());
+        roadCount = roadNetwork.roads.length;
+        Navigation navigation = new Navigation();
+        navigation.setRoadNetwork(roadNetwork);
+        Simulation simulation = new Simulation(navigation, SimulationEngineType.OBJECT.create(navigation),
+                new Random(3), events -> {});
+        simulation.setTargetCount(300);
+
+        TrajectoryRecorder recorder = new TrajectoryRecorder(simulation, directory, SEGMENT_TICKS, KEYFRAME_INTERVAL);
+        long[] tick = {0};
+        simulation.addTickListener(() -> {
+            simulation.forEachParticipant((id, road, roadPosition, velocity, acceleration, hasCallback) ->
+                    captured.add(new TrajectoryStore.Sample(tick[0], id, road,
+                            (int) Math.round(roadPosition * TrajectoryFormat.SCALE),
+                            (int) Math.round(velocity * TrajectoryFormat.SCALE))));
+            tick[0]++;
+        });
+
+        for (int i = 0; i < STALLED_TICKS; i++) simulation.tick();
+        long queued = STALLED_TICKS - recorder.getMetrics().getDropped();
+        for (long t = queued; t < STALLED_TICKS; t++) droppedTicks.add(t);
+        recorder.start();
+        for (int i = STALLED_TICKS; i < TICKS; i++) {
+            //wait for the writer, so no further tick is dropped
+            while (recorder.getMetrics().getRecorded() + recorder.getMetrics().getDropped() < i) Thread.sleep(1);
+            simulation.tick();
+        }
+        while (recorder.getMetrics().getRecorded() + recorder.getMetrics().getDropped() < TICKS) Thread.sleep(1);
+        assertEquals(STALLED_TICKS - queued, recorder.getMetrics().getDropped());
+        assertTrue(droppedTicks.size() > 0);
+        store = new TrajectoryStore(directory);
+    }
+
+    @Test
+    void carsAppearInDeltaBlocks() throws IOException {
+        //a car entering after the first tick of a keyframe interval is only written in a delta block
+        int car = -1;
+        long firstTick = -1;
+        Set<Integer> seen = new HashSet<>();
+        for (TrajectoryStore.Sample sample : captured) {
+            long tick = sample.getTick();
+            if (seen.add(sample.getCarId()) && tick > STALLED_TICKS && tick % KEYFRAME_INTERVAL != 0
+                    && tick % SEGMENT_TICKS != 0) {
+                car = sample.getCarId();
+                firstTick = tick;
+                break;
+            }
+        }
+        assertTrue(car >= 0, "no car appeared within a keyframe interval");
+        long from = firstTick - 5;
+        long to = firstTick + 20;
+        assertSamples(expectedTrajectory(car, from, to), store.trajectory(car, from, to));
+    }
+
+    @Test
+    void queryBetweenKeyframes() throws IOException {
+        long from = 3 * KEYFRAME_INTERVAL + 7;
+        long to = from + KEYFRAME_INTERVAL / 2;
+        for (int road = 0; road < roadCount; road++) {
+            assertSamples(expectedOnRoad(road, from, to), store.carsOnRoad(road, from, to));
+        }
+        int car = carAt(from);
+        assertSamples(expectedTrajectory(car, from, to), store.trajectory(car, from, to));
+    }
+
+    @Test
+    void querySpanningSegments() throws IOException {
+        long from = SEGMENT_TICKS - 10;
+        long to = 3 * SEGMENT_TICKS + 10;
+        for (int road = 0; road < roadCount; road++) {
+            assertSamples(expectedOnRoad(road, from, to), store.carsOnRoad(road, from, to));
+        }
+        int car = carAt(2 * SEGMENT_TICKS - 1);
+        assertSamples(expectedTrajectory(car, from, to), store.trajectory(car, from, to));
+    }
+
+    @Test
+    void droppedTicks() throws IOException {
+        //the ticks the writer fell behind are missing, the ticks after them are complete again
+        long from = 0;
+        long to = STALLED_TICKS + 2 * KEYFRAME_INTERVAL;
+        for (int road = 0; road < roadCount; road++) {
+            assertSamples(expectedOnRoad(road, from, to), store.carsOnRoad(road, from, to));
+        }
+        for (long tick : droppedTicks) assertTrue(store.carsOnRoad(0, tick, tick).isEmpty());
+        int car = carAt(STALLED_TICKS);
+        assertSamples(expectedTrajectory(car, from, to), store.trajectory(car, from, to));
+    }
+
+    @Test
+    void wholeRecording() throws IOException {
+        for (int road = 0; road < roadCount; road++) {
+            assertSamples(expectedOnRoad(road, 0, TICKS), store.carsOnRoad(road, 0, TICKS));
+        }
+    }
+
+    private static int carAt(long tick) {
+        for (TrajectoryStore.Sample sample : captured) {
+            if (sample.getTick() == tick) return sample.getCarId();
+        }
+        throw new IllegalStateException("no car at tick " + tick);
+    }
+
+    private static List<TrajectoryStore.Sample> expectedTrajectory(int car, long from, long to) {
+        List<TrajectoryStore.Sample> samples = new ArrayList<>();
+        for (TrajectoryStore.Sample sample : expected(from, to)) {
+            if (sample.getCarId() == car) samples.add(sample);
+        }
+        return samples;
+    }
+
+    private static List<TrajectoryStore.Sample> expectedOnRoad(int road, long from, long to) {
+        List<TrajectoryStore.Sample> samples = new ArrayList<>();
+        for (TrajectoryStore.Sample sample : expected(from, to)) {
+            if (sample.getRoad() == road) samples.add(sample);
+        }
+        return samples;
+    }
+
+    /**
+     * @return the captured samples of the recorded ticks in the range, ordered by tick and car id
+     */
+    private static List<TrajectoryStore.Sample> expected(long from, long to) {
+        List<TrajectoryStore.Sample> samples = new ArrayList<>();
+        for (TrajectoryStore.Sample sample : captured) {
+            if (sample.getTick() >= from && sample.getTick() <= to && !droppedTicks.contains(sample.getTick()))
+                samples.add(sample);
+        }
+        samples.sort((a, b) -> a.getTick() != b.getTick() ? Long.compare(a.getTick(), b.getTick())
+                : Integer.compare(a.getCarId(), b.getCarId()));
+        return samples;
+    }
+
+    private static void assertSamples(List<TrajectoryStore.Sample> expected, List<TrajectoryStore.Sample> actual) {
+        assertTrue(expected.size() > 0);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TrajectoryStore.Sample e = expected.get(i);
+            TrajectoryStore.Sample a = actual.get(i);
+            assertEquals(e.getTick(), a.getTick());
+            assertEquals(e.getCarId(), a.getCarId());
+            assertEquals(e.getRoad(), a.getRoad());
+            assertEquals(e.getRoadPosition(), a.getRoadPosition());
+            assertEquals(e.getVelocity(), a.getVelocity());
+        }
+    }
+}
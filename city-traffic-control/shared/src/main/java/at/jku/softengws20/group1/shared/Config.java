@@ -12,9 +12,38 @@ public class Config {
     public static final int MAX_CARS = 1000;
 
 
+    //Participants------------------------------------------------------------------------------------------------------
+    public static final String PARTICIPANTS_SIMULATION_ENGINE = "OBJECT";    //OBJECT = one object per car, ARRAY = primitive arrays per car slot, REGION = one worker per map region
+    public static final int PARTICIPANTS_REGIONS = 0;                         //regions of the REGION engine, 0 = one per processor
+    public static final String PARTICIPANTS_ROUTING_MODE = "DIJKSTRA";       //DIJKSTRA, REVERSE_TREE, CONTRACTION_HIERARCHIES, ASTAR or ALT (see RoutingMode)
+    public static final int PARTICIPANTS_MAX_ROUTE_TREES = 256;               //destinations kept by REVERSE_TREE routing
+    public static final int PARTICIPANTS_ALT_LANDMARKS = 16;                  //landmark crossings used by ALT routing
+    public static final double PARTICIPANTS_SPEED_CHANGE_THRESHOLD = 0.1;     //relative change of the estimated speed of a road that triggers rerouting
+    public static final int PARTICIPANTS_ARRIVAL_QUEUE_CAPACITY = 10000;      //arrival callbacks waiting to be sent, further arrivals are dropped
+    public static final int PARTICIPANTS_ARRIVAL_FLUSH_INTERVAL = 100;        //ms between two sends of the queued arrival callbacks
+    public static final int PARTICIPANTS_ARRIVAL_MAX_BATCH = 100;             //arrivals sent in one batched request
+    public static final int PARTICIPANTS_ARRIVAL_MAX_RETRIES = 3;             //retries of a failed arrival callback request
+    public static final int PARTICIPANTS_ARRIVAL_RETRY_DELAY = 500;           //ms before the first retry, doubled for every further retry
+    public static final int PARTICIPANTS_LIVE_FEED_GRID = 16;                 //cells per axis the live feed is encoded in, subscribers get the cells of their bounding box
+    public static final int PARTICIPANTS_DENSITY_LEVELS = 8;                  //zoom levels of the density tiles, the finest level has 2^(levels - 1) tiles per axis
+    public static final String PARTICIPANTS_SNAPSHOT_FILE = "";               //file the simulation is restored from at startup and saved to, empty = no snapshots
+    public static final int PARTICIPANTS_SNAPSHOT_INTERVAL = 0;               //s between scheduled snapshots, 0 = only on demand
+    public static final String PARTICIPANTS_RECORDING_DIRECTORY = "";         //directory the trajectories are recorded to, one subdirectory per start, empty = no recording
+    public static final int PARTICIPANTS_RECORDING_SEGMENT_TICKS = 3600;      //ticks per trajectory segment file
+    public static final int PARTICIPANTS_RECORDING_KEYFRAME_INTERVAL = 60;    //ticks between self-contained trajectory blocks, a query decodes at most this many ticks it does not need
+    public static final String PARTICIPANTS_DEMAND_FILE = "";                 //CSV the trips of generated participants are sampled from (see DemandModel), empty = uniform
+    public static final int PARTICIPANTS_MAX_PENDING_TRIPS = 200000;          //trips of sendCars waiting for the next tick, further batches are rejected
+
+
     //Detection---------------------------------------------------------------------------------------------------------
-    public static final float MINUTES_FOR_FULL_TRAFFIC_LIGHT_RUN = 1;
+    public static final float MINUTES_FOR_FULL_TRAFFIC_LIGHT_RUN = 1;         //simulated minutes
     public static final String STANDARD_TEST_INFO_SIGN = "good ride";
+    public static final int DETECTION_TIMER_WHEEL_SLOTS = 512;                //slots of the traffic light timer wheel, longer timeouts wait for several turns
+    public static final int DETECTION_TIMER_TICK = 100;                       //simulated ms per slot of the traffic light timer wheel and ms between two checks of the clock, phase changes are rounded up to it
+    public static final int DETECTION_TRAFFIC_LIGHT_WORKERS = 4;              //threads switching the traffic lights
+    public static final int DETECTION_TRAFFIC_LIGHT_BATCH_WINDOW = 50;        //ms traffic light changes are collected to be sent to the participants in one request
+    public static final int DETECTION_INGEST_SHARDS = 64;                     //shards the cars are split into for counting car positions, power of 2
+    public static final int DETECTION_INGEST_THREADS = 4;                     //threads applying large batches of car positions
 
 
     //Maintenance-------------------------------------------------------------------------------------------------------
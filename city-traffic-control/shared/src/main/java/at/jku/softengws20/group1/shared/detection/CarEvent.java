@@ -0,0 +1,11 @@
+package at.jku.softengws20.group1.shared.detection;
+
+/**
+ * A car changing its road. Moving from one road to the next is a LEAVE of the old road followed by an ENTER
+ * of the new road, a new car only has an ENTER and an arrived car only an ARRIVE.
+ */
+public interface CarEvent {
+    int getCarId();
+    CarEventType getType();
+    String getRoadSegmentId();
+}
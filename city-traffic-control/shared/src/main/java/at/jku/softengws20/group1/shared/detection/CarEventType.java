@@ -0,0 +1,16 @@
+package at.jku.softengws20.group1.shared.detection;
+
+public enum CarEventType {
+    /**
+     * the car drove onto the road
+     */
+    ENTER,
+    /**
+     * the car left the road for another road
+     */
+    LEAVE,
+    /**
+     * the car reached its destination on the road and left the simulation
+     */
+    ARRIVE
+}
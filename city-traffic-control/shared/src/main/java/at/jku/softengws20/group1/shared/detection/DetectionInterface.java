@@ -1,6 +1,8 @@
 package at.jku.softengws20.group1.shared.detection;
 
-public interface DetectionInterface<T extends TrafficLoad, T1 extends TrafficLightRule, T2 extends CarPosition> {
+import at.jku.softengws20.group1.shared.impl.model.TrafficLoadChanges;
+
+public interface DetectionInterface<T extends TrafficLoad, T1 extends TrafficLightRule, T2 extends CarPosition, T3 extends CarEvent> {
     String URL = "/detection";
 
     /**
@@ -10,6 +12,14 @@ public interface DetectionInterface<T extends TrafficLoad, T1 extends TrafficLig
     String GET_TRAFFIC_LOAD_URL = "trafficLoad";
     T[] getTrafficLoad();
 
+    /**
+     * Provides the traffic load of the roads changed after the given change sequence number
+     * ({@code trafficLoad?since=N}). All roads are returned if the sequence number is 0 or unknown.
+     * @return the changed roads and the sequence number for the next call
+     */
+    String GET_TRAFFIC_LOAD_SINCE = "since";
+    TrafficLoadChanges getTrafficLoad(long since);
+
     /**
      * called by ControlSystem
      * Receives Traffic light rules and sets the priority for the corresponding traffic light
@@ -24,4 +34,11 @@ public interface DetectionInterface<T extends TrafficLoad, T1 extends TrafficLig
      */
     String SET_CAR_POSITION = "setCarPosition";
     void setCarPosition(T2[] position);
+
+    /**
+     * called by Participants
+     * applies the road changes of cars since the last call, in the order of the array
+     */
+    String SET_CAR_EVENTS = "setCarEvents";
+    void setCarEvents(T3[] events);
 }
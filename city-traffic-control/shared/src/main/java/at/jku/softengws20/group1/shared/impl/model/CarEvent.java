@@ -0,0 +1,33 @@
+package at.jku.softengws20.group1.shared.impl.model;
+
+import at.jku.softengws20.group1.shared.detection.CarEventType;
+
+public class CarEvent implements at.jku.softengws20.group1.shared.detection.CarEvent {
+
+    private int carId;
+    private CarEventType type;
+    private String roadSegmentId;
+
+    public CarEvent() {}
+
+    public CarEvent(int carId, CarEventType type, String roadSegmentId) {
+        this.carId = carId;
+        this.type = type;
+        this.roadSegmentId = roadSegmentId;
+    }
+
+    @Override
+    public int getCarId() {
+        return carId;
+    }
+
+    @Override
+    public CarEventType getType() {
+        return type;
+    }
+
+    @Override
+    public String getRoadSegmentId() {
+        return roadSegmentId;
+    }
+}
@@ -0,0 +1,46 @@
+package at.jku.softengws20.group1.shared.impl.model;
+
+/**
+ * Acceptance statistics of one batch of {@link at.jku.softengws20.group1.shared.participants.ParticipantsInterface#sendCars}.
+ */
+public class SendCarsResult {
+    private int received;
+    private int accepted;
+    private int rejected;
+    private String[] errors;
+
+    public SendCarsResult() {
+    }
+
+    public SendCarsResult(int received, int accepted, int rejected, String[] errors) {
+        this.received = received;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    /**
+     * trips in the request
+     */
+    public int getReceived() {
+        return received;
+    }
+
+    /**
+     * trips that start with the next tick
+     */
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * reasons of the first rejected trips
+     */
+    public String[] getErrors() {
+        return errors;
+    }
+}
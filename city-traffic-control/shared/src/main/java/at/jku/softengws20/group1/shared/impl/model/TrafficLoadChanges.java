@@ -0,0 +1,47 @@
+package at.jku.softengws20.group1.shared.impl.model;
+
+/**
+ * Traffic load of the roads changed after a change sequence number, see
+ * {@link at.jku.softengws20.group1.shared.detection.DetectionInterface#getTrafficLoad(long)}.
+ */
+public class TrafficLoadChanges {
+    private long epoch;
+    private long sequence;
+    private boolean full;
+    private TrafficLoad[] trafficLoad;
+
+    public TrafficLoadChanges() {
+    }
+
+    public TrafficLoadChanges(long epoch, long sequence, boolean full, TrafficLoad[] trafficLoad) {
+        this.epoch = epoch;
+        this.sequence = sequence;
+        this.full = full;
+        this.trafficLoad = trafficLoad;
+    }
+
+    /**
+     * identifies the run of the detection system, sequence numbers of another epoch are meaningless
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * change sequence number to ask for the next changes with
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * true if the traffic load of all roads is contained
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public TrafficLoad[] getTrafficLoad() {
+        return trafficLoad;
+    }
+}
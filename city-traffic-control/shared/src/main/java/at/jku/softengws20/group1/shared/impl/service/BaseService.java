@@ -21,6 +21,10 @@ public abstract class BaseService {
         restTemplate.postForEntity(concatUrl(baseUrl, url), object, void.class);
     }
 
+    protected <T> T post(String url, Object object, Class<T> type) {
+        return successBodyOrNull(restTemplate.postForEntity(concatUrl(baseUrl, url), object, type));
+    }
+
     protected <T> T successBodyOrNull(String url, Class<T> type) {
         ResponseEntity<T> response = restTemplate.getForEntity(concatUrl(baseUrl, url), type);
         return successBodyOrNull(response);
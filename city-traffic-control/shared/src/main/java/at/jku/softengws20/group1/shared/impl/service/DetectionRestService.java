@@ -1,12 +1,14 @@
 package at.jku.softengws20.group1.shared.impl.service;
 
+import at.jku.softengws20.group1.shared.detection.CarEvent;
 import at.jku.softengws20.group1.shared.detection.CarPosition;
 import at.jku.softengws20.group1.shared.detection.DetectionInterface;
 import at.jku.softengws20.group1.shared.detection.TrafficLightRule;
 import at.jku.softengws20.group1.shared.detection.TrafficLoad;
+import at.jku.softengws20.group1.shared.impl.model.TrafficLoadChanges;
 
-public abstract class DetectionRestService<T0 extends TrafficLoad, T1 extends TrafficLightRule, T2 extends CarPosition>
-        extends BaseService implements DetectionInterface<T0, T1, T2> {
+public abstract class DetectionRestService<T0 extends TrafficLoad, T1 extends TrafficLightRule, T2 extends CarPosition, T3 extends CarEvent>
+        extends BaseService implements DetectionInterface<T0, T1, T2, T3> {
 
     private Class<T0[]> trafficLoadType;
 
@@ -20,6 +22,11 @@ public abstract class DetectionRestService<T0 extends TrafficLoad, T1 extends Tr
         return successBodyOrNull(DetectionInterface.GET_TRAFFIC_LOAD_URL, trafficLoadType);
     }
 
+    @Override
+    public TrafficLoadChanges getTrafficLoad(long since) {
+        return successBodyOrNull(DetectionInterface.GET_TRAFFIC_LOAD_URL + "?" + DetectionInterface.GET_TRAFFIC_LOAD_SINCE + "=" + since, TrafficLoadChanges.class);
+    }
+
     @Override
     public void setTrafficLightRules(TrafficLightRule[] rules) {
         post(DetectionInterface.SET_TRAFFIC_LIGHT_RULES_URL, rules);
@@ -29,4 +36,9 @@ public abstract class DetectionRestService<T0 extends TrafficLoad, T1 extends Tr
     public void setCarPosition(CarPosition[] position) {
         post(DetectionInterface.SET_CAR_POSITION, position);
     }
+
+    @Override
+    public void setCarEvents(CarEvent[] events) {
+        post(DetectionInterface.SET_CAR_EVENTS, events);
+    }
 }
@@ -17,4 +17,9 @@ public abstract class MaintenanceRestService extends BaseService implements Main
     public void notifyMaintenanceCarArrived(String id) {
         post(MaintenanceInterface.NOTIFY_MAINTENANCE_CAR_ARRIVED_URL + "/" + id, null);
     } // shouldn't be used
+
+    @Override
+    public void notifyMaintenanceCarsArrived(String[] carIds) {
+        post(MaintenanceInterface.NOTIFY_MAINTENANCE_CAR_ARRIVED_URL, carIds);
+    } // shouldn't be used
 }
@@ -1,6 +1,7 @@
 package at.jku.softengws20.group1.shared.impl.service;
 
 import at.jku.softengws20.group1.shared.impl.model.CarPath;
+import at.jku.softengws20.group1.shared.impl.model.SendCarsResult;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLightChange;
 import at.jku.softengws20.group1.shared.participants.ParticipantsInterface;
 
@@ -14,8 +15,18 @@ public abstract class ParticipantsRestService extends BaseService implements Par
         post(ParticipantsInterface.SEND_CAR, request);
     }
 
+    @Override
+    public SendCarsResult sendCars(CarPath[] requests) {
+        return post(ParticipantsInterface.SEND_CARS, requests, SendCarsResult.class);
+    }
+
     @Override
     public void notifyTrafficLightChanged(TrafficLightChange change) {
         post(ParticipantsInterface.NOTIFY_TRAFFIC_LIGHT_CHANGED, change);
     }
+
+    @Override
+    public void notifyTrafficLightsChanged(TrafficLightChange[] changes) {
+        post(ParticipantsInterface.NOTIFY_TRAFFIC_LIGHTS_CHANGED, changes);
+    }
 }
@@ -11,5 +11,10 @@ public interface CarPath {
      * Denotes the relative position of the destination on the road, ranging from 0 to 1
      */
     double getDestinationRoadPosition();
+    /**
+     * Called with GET when the car arrived. For the arrival callback of maintenance
+     * ({@code .../maintenance/notifyMaintenanceCarArrived/{carId}}) several arrivals are sent in one POST to the
+     * parent path with a JSON array of the car ids instead.
+     */
     String getCallbackUri();
 }
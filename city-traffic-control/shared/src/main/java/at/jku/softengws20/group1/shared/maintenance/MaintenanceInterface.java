@@ -26,4 +26,12 @@ public interface MaintenanceInterface<T extends MaintenanceRequest> {
      */
     String NOTIFY_MAINTENANCE_CAR_ARRIVED_URL = "notifyMaintenanceCarArrived";
     void notifyMaintenanceCarArrived(String carId);
+
+    /**
+     * Same as <a href = "#{@link}">{@link #notifyMaintenanceCarArrived(String)}</a> for several cars at once.
+     * Used by the Participants system to send the arrivals of one tick in one request.
+     *
+     * @param carIds the ids of the cars that arrived at their destination.
+     */
+    void notifyMaintenanceCarsArrived(String[] carIds);
 }
@@ -1,6 +1,7 @@
 package at.jku.softengws20.group1.shared.participants;
 
 import at.jku.softengws20.group1.shared.impl.model.CarPath;
+import at.jku.softengws20.group1.shared.impl.model.SendCarsResult;
 import at.jku.softengws20.group1.shared.impl.model.TrafficLightChange;
 
 public interface ParticipantsInterface {
@@ -9,6 +10,20 @@ public interface ParticipantsInterface {
     String SEND_CAR = "sendCar";
     void sendCar(CarPath request) throws Exception;
 
+    /**
+     * Sends many cars at once, e.g. for load tests. The request body is a JSON array of car paths; all valid
+     * paths start together with the next tick, invalid ones are rejected and reported in the result.
+     */
+    String SEND_CARS = "sendCars";
+    SendCarsResult sendCars(CarPath[] requests) throws Exception;
+
     String NOTIFY_TRAFFIC_LIGHT_CHANGED = "trafficLightChanged";
     void notifyTrafficLightChanged(TrafficLightChange change);
+
+    /**
+     * Notifies about the traffic light changes of several crossings at once. They take effect together between
+     * two ticks; if a crossing is contained more than once, its last change wins.
+     */
+    String NOTIFY_TRAFFIC_LIGHTS_CHANGED = "trafficLightsChanged";
+    void notifyTrafficLightsChanged(TrafficLightChange[] changes);
 }
\ No newline at end of file